@@ -0,0 +1,35 @@
+package handler;
+
+import chess.ChessGame;
+import chess.PositionCache;
+import io.javalin.http.Context;
+import model.AuthData;
+import util.Constants;
+
+public class PositionCacheHandler {
+
+    private final ResultToJsonStringConverter serializer;
+
+    public PositionCacheHandler() {
+        serializer = ResultToJsonStringConverter.getInstance();
+    }
+
+    /**
+     * Reports the shared position cache's size and hit rate. For debugging, so like the game
+     * endpoints it needs a valid auth token.
+     */
+    public void statsHandler(Context context) {
+        AuthData authData = AuthHandler.doAuth(context);
+        if (authData == null || !authData.isValid()) {
+            return;
+        }
+        PositionCache cache = ChessGame.getPositionCache();
+        if (cache == null) {
+            context.status(Constants.NOT_FOUND);
+            context.result("{ \"message\": \"Error: position cache is disabled\"}");
+            return;
+        }
+        context.status(Constants.OK);
+        context.result(serializer.resToString(cache.stats()));
+    }
+}
@@ -1,10 +1,13 @@
 package server;
 
+import chess.ChessGame;
+import chess.PositionCache;
 import dataaccess.*;
 import dataaccess.exception.DatabaseConnectivityException;
 import handler.AuthHandler;
 import handler.ChessGameHandler;
 import handler.ClearApplicationHandler;
+import handler.PositionCacheHandler;
 import handler.UserHandler;
 import io.javalin.Javalin;
 import service.AuthService;
@@ -13,12 +16,15 @@ import service.GameService;
 import service.UserService;
 import util.Constants;
 import util.MyLogger;
+import util.ReadProperties;
 import websocket.WebsocketConnection;
 import websocket.WebsocketMessageHandler;
 import websocket.WebsocketSessionHandler;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Properties;
 import java.util.logging.Logger;
 
 
@@ -29,6 +35,7 @@ public class Server {
 
     public Server() {
         javalin = Javalin.create(config -> config.staticFiles.add("web"));
+        configurePositionCache();
 
         AuthDAO authDAO = DAOFactory.getAuthDAO();
         GameDAO gameDAO = DAOFactory.getGameDAO();
@@ -49,6 +56,7 @@ public class Server {
         UserHandler userHandler = new UserHandler(userService);
 
         AuthHandler authHandler = new AuthHandler(authService);
+        PositionCacheHandler positionCacheHandler = new PositionCacheHandler();
 
         WebsocketSessionHandler sessionHandler = new WebsocketSessionHandler();
         WebsocketConnection connection = new WebsocketConnection(sessionHandler);
@@ -63,6 +71,7 @@ public class Server {
                 .get("/game", chessGameHandler::listGamesHandler)
                 .post("/game", chessGameHandler::createGameHandler)
                 .put("/game", chessGameHandler::joinGameHandler)
+                .get("/stats/positionCache", positionCacheHandler::statsHandler)
                 .ws("/ws",ws -> {
                     ws.onMessage(messageHandler);
                     ws.onClose(connection);
@@ -82,5 +91,25 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        PositionCache cache = ChessGame.getPositionCache();
+        if (cache != null) {
+            LOGGER.info(cache.toString());
+        }
+    }
+
+    /**
+     * Installs the position cache shared by every game when server.properties sets
+     * positionCacheSize above 0
+     */
+    private static void configurePositionCache() {
+        int size;
+        try {
+            Properties props = ReadProperties.readPropertiesFile("server.properties");
+            size = Integer.parseInt(props.getProperty("positionCacheSize", "0").trim());
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.warning("Could not read positionCacheSize, position cache disabled: " + e.getMessage());
+            size = 0;
+        }
+        ChessGame.setPositionCache(size > 0 ? new PositionCache(size) : null);
     }
 }
@@ -163,7 +163,7 @@ public class WebsocketMessageHandler implements WsMessageHandler {
         return switch (state){
             case WHITE_WIN_OPP_RESIGN -> BLACK_RESIGN;
             case BLACK_WIN_OPP_RESIGN -> WHITE_RESIGN;
-            case DRAW_STALEMATE -> DRAW_GAME;
+            case DRAW_STALEMATE, DRAW_REPETITION, DRAW_FIFTY_MOVE -> DRAW_GAME;
             case WHITE_WIN_CHECKMATE -> WHITE_WIN_BY_CHECKMATE;
             case BLACK_WIN_CHECKMATE -> BLACK_WIN_BY_CHECKMATE;
             case BLACK_CHECK -> BLACK_IN_CHECK;
@@ -0,0 +1,185 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit square masks.
+ * <p>
+ * Squares are numbered 0-63 starting at row 1, column 1 and increasing along the row,
+ * so square = (row - 1) * 8 + (column - 1).
+ */
+public class BitboardUtil {
+
+    public static final int PIECE_TYPES = ChessPiece.PieceType.values().length;
+    public static final int PIECE_KINDS = PIECE_TYPES * 2;
+
+    public static final long COLUMN_1 = 0x0101010101010101L;
+    public static final long COLUMN_2 = COLUMN_1 << 1;
+    public static final long COLUMN_7 = COLUMN_1 << 6;
+    public static final long COLUMN_8 = COLUMN_1 << 7;
+
+    private static final long NOT_COLUMN_1 = ~COLUMN_1;
+    private static final long NOT_COLUMN_8 = ~COLUMN_8;
+    private static final long NOT_COLUMNS_1_2 = ~(COLUMN_1 | COLUMN_2);
+    private static final long NOT_COLUMNS_7_8 = ~(COLUMN_7 | COLUMN_8);
+
+    // Squares strictly between two squares sharing a row, column or diagonal, otherwise empty
+    private static final long[][] BETWEEN = new long[64][64];
+    // Every square on the row, column or diagonal through two aligned squares, otherwise empty
+    private static final long[][] LINE = new long[64][64];
+
+    // Leaper attacks from each square, indexed [square] and [color][square] for pawns
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = knightAttacksOf(bit(square));
+            KING_ATTACKS[square] = kingAttacksOf(bit(square));
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                PAWN_ATTACKS[color.ordinal()][square] = pawnAttacksOf(bit(square), color);
+            }
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = bit(a) | bit(b);
+                if ((rookAttacks(a, 0L) & bit(b)) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, bit(b)) & rookAttacks(b, bit(a));
+                    LINE[a][b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | ends;
+                } else if ((bishopAttacks(a, 0L) & bit(b)) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, bit(b)) & bishopAttacks(b, bit(a));
+                    LINE[a][b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    BitboardUtil() {
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int rowOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int columnOf(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return index of the bitboard holding pieces of the given color and type
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    public static int pieceIndex(ChessPiece piece) {
+        return pieceIndex(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    public static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * @return squares a knight on the given square attacks, from a table built once at startup
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return squares a pawn of the given color on the given square attacks
+     */
+    public static long pawnAttacks(int square, ChessGame.TeamColor color) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * Named apart from {@link #knightAttacks(int)} so a square passed by mistake does not compile
+     * to the set version, or the other way round
+     *
+     * @return squares attacked by knights on any of the given squares
+     */
+    public static long knightAttacksOf(long knights) {
+        return ((knights << 17) & NOT_COLUMN_1)
+                | ((knights << 15) & NOT_COLUMN_8)
+                | ((knights << 10) & NOT_COLUMNS_1_2)
+                | ((knights << 6) & NOT_COLUMNS_7_8)
+                | ((knights >>> 17) & NOT_COLUMN_8)
+                | ((knights >>> 15) & NOT_COLUMN_1)
+                | ((knights >>> 10) & NOT_COLUMNS_7_8)
+                | ((knights >>> 6) & NOT_COLUMNS_1_2);
+    }
+
+    /**
+     * @return squares attacked by kings on any of the given squares
+     */
+    public static long kingAttacksOf(long kings) {
+        long sideways = ((kings << 1) & NOT_COLUMN_1) | ((kings >>> 1) & NOT_COLUMN_8);
+        long row = kings | sideways;
+        return sideways | (row << 8) | (row >>> 8);
+    }
+
+    /**
+     * @return squares attacked by pawns of the given color standing on the given squares
+     */
+    public static long pawnAttacksOf(long pawns, ChessGame.TeamColor color) {
+        if (color == ChessGame.TeamColor.WHITE) {
+            return ((pawns << 9) & NOT_COLUMN_1) | ((pawns << 7) & NOT_COLUMN_8);
+        }
+        return ((pawns >>> 7) & NOT_COLUMN_1) | ((pawns >>> 9) & NOT_COLUMN_8);
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return MagicBitboards.rookAttacks(square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return MagicBitboards.bishopAttacks(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return MagicBitboards.rookAttacks(square, occupied) | MagicBitboards.bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return squares the given piece standing on the given square attacks, sliders stopping at
+     * the first occupied square in each direction
+     */
+    public static long attacks(ChessPiece piece, int square, long occupied) {
+        return switch (piece.getPieceType()) {
+            case KING -> KING_ATTACKS[square];
+            case QUEEN -> queenAttacks(square, occupied);
+            case ROOK -> rookAttacks(square, occupied);
+            case BISHOP -> bishopAttacks(square, occupied);
+            case KNIGHT -> KNIGHT_ATTACKS[square];
+            case PAWN -> PAWN_ATTACKS[piece.getTeamColor().ordinal()][square];
+        };
+    }
+}
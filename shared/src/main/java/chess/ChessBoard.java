@@ -1,9 +1,18 @@
 package chess;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -11,19 +20,178 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.IndexingAdapter.class)
 public class ChessBoard {
 
+    public static final int NO_SQUARE = -1;
+    // Size of the binary encoding written by write(ByteBuffer): one nibble per square
+    public static final int ENCODED_SIZE = 32;
+
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
 
     private ChessPiece[][] board;
 
+    // Bitboard view of board, one mask per color/piece type (see BitboardUtil.pieceIndex).
+    // Transient so Gson keeps writing the plain array; built by every constructor, and by IndexingAdapter
+    // for boards Gson reads, so the getters below never write to the board.
+    private transient long[] pieceBitboards;
+    private transient long[] colorOccupancy;
+    private transient long occupied;
+    // Zobrist key of the piece placement, kept up to date alongside the bitboards
+    private transient long zobristKey;
+    // Per-color king square (NO_SQUARE when missing) and piece lists. pieceListIndex maps a square
+    // back to its slot in its color's list so removal is a swap with the last entry.
+    private transient int[] kingSquares;
+    private transient int[][] pieceLists;
+    private transient int[] pieceCounts;
+    private transient int[] pieceListIndex;
+    // Optional attack maps (see setAttackTracking). attacksFrom holds the squares attacked by the piece
+    // on each square, attackerCounts how many pieces of each color attack each square, and colorAttacks
+    // the squares with a nonzero count; all three are patched on every change.
+    private transient boolean attackTracking;
+    private transient long[] attacksFrom;
+    private transient int[][] attackerCounts;
+    private transient long[] colorAttacks;
+
     public ChessBoard() {
         board = new ChessPiece[8][8];
+        rebuildIndex();
+    }
+
+    private ChessBoard(ChessPiece[][] squares) {
+        board = squares;
+        rebuildIndex();
+    }
+
+    /**
+     * Reads the piece placement field of a FEN string, such as
+     * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR". Rows run from 8 down to 1, each from column a to h.
+     *
+     * @param placement the placement field only, without side to move or the other FEN fields
+     * @throws IllegalArgumentException if the placement does not describe 8 rows of 8 squares
+     */
+    public static ChessBoard fromFen(String placement) {
+        ChessPiece[][] squares = new ChessPiece[8][8];
+        int row = 7;
+        int col = 0;
+        for (int i = 0; i < placement.length(); i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw new IllegalArgumentException("FEN row " + (row + 1) + " does not have 8 columns: "
+                            + placement);
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                if (col >= 8) {
+                    throw new IllegalArgumentException("FEN row " + (row + 1) + " is too long: " + placement);
+                }
+                squares[row][col++] = ChessPiece.fromFenChar(c);
+            }
+            if (col > 8) {
+                throw new IllegalArgumentException("FEN row " + (row + 1) + " is too long: " + placement);
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw new IllegalArgumentException("FEN placement needs 8 rows of 8 columns: " + placement);
+        }
+        return new ChessBoard(squares);
+    }
+
+    /**
+     * @return the FEN piece placement field for this board, see {@link #fromFen(String)}
+     */
+    public String toFen() {
+        StringBuilder sb = new StringBuilder(72);
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board[row][col];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                sb.append(piece.toFenChar());
+            }
+            if (empty > 0) {
+                sb.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                sb.append('/');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the board as 32 bytes: one 4-bit nibble per square in square index order, low nibble
+     * first, holding {@link BitboardUtil#pieceIndex} + 1 or 0 for an empty square
+     *
+     * @param buffer buffer to write to, advanced by {@link #ENCODED_SIZE} bytes
+     */
+    public void write(ByteBuffer buffer) {
+        for (int square = 0; square < 64; square += 2) {
+            buffer.put((byte) (nibble(board[square >>> 3][square & 7])
+                    | nibble(board[(square + 1) >>> 3][(square + 1) & 7]) << 4));
+        }
+    }
+
+    private static int nibble(ChessPiece piece) {
+        return piece == null ? 0 : BitboardUtil.pieceIndex(piece) + 1;
+    }
+
+    /**
+     * Reads a board written by {@link #write(ByteBuffer)}
+     *
+     * @param buffer buffer to read from, advanced by {@link #ENCODED_SIZE} bytes
+     * @throws IllegalArgumentException if a square holds a value that is not a piece
+     */
+    public static ChessBoard read(ByteBuffer buffer) {
+        ChessPiece[][] squares = new ChessPiece[8][8];
+        for (int square = 0; square < 64; square += 2) {
+            int packed = buffer.get() & 0xFF;
+            squares[square >>> 3][square & 7] = fromNibble(packed & 0xF);
+            squares[(square + 1) >>> 3][(square + 1) & 7] = fromNibble(packed >>> 4);
+        }
+        return new ChessBoard(squares);
+    }
+
+    private static ChessPiece fromNibble(int nibble) {
+        if (nibble == 0) {
+            return null;
+        }
+        if (nibble > BitboardUtil.PIECE_KINDS) {
+            throw new IllegalArgumentException("Invalid piece code " + nibble + " in encoded board");
+        }
+        return ChessPiece.of(nibble - 1);
     }
 
     public ChessBoard(ChessBoard cb) {
-        board = Arrays.stream(cb.board)
-                .map(ChessPiece[]::clone)
-                .toArray(ChessPiece[][]::new);
+        board = new ChessPiece[8][];
+        for (int i = 0; i < 8; i++) {
+            board[i] = cb.board[i].clone();
+        }
+        pieceBitboards = cb.pieceBitboards.clone();
+        colorOccupancy = cb.colorOccupancy.clone();
+        occupied = cb.occupied;
+        zobristKey = cb.zobristKey;
+        kingSquares = cb.kingSquares.clone();
+        pieceLists = new int[][]{cb.pieceLists[0].clone(), cb.pieceLists[1].clone()};
+        pieceCounts = cb.pieceCounts.clone();
+        pieceListIndex = cb.pieceListIndex.clone();
+        if (cb.attackTracking) {
+            attackTracking = true;
+            attacksFrom = cb.attacksFrom.clone();
+            attackerCounts = new int[][]{cb.attackerCounts[0].clone(), cb.attackerCounts[1].clone()};
+            colorAttacks = cb.colorAttacks.clone();
+        }
     }
 
 
@@ -32,14 +200,54 @@ public class ChessBoard {
         if (piece == null) {
             throw new InvalidMoveException("Invalid move, Piece not found");
         }
+        makeMove(move);
+    }
+
+    /**
+     * Plays a move on this board in place, without checking that it is legal
+     *
+     * @param move the move to play, its start position must hold a piece
+     * @return an undo record (see {@link UndoRecord}) that unmakeMove uses to take the move back
+     */
+    public int makeMove(ChessMove move) {
+        return makeMove(MoveList.encode(move));
+    }
 
-        ChessPiece.PieceType type = move.getPromotionPiece();
-        if (type != null) {
-            piece = new ChessPiece(piece.getTeamColor(), type);
+    /**
+     * Plays a packed move on this board in place, without checking that it is legal
+     *
+     * @param move the move to play, packed as in {@link MoveList}
+     * @return an undo record (see {@link UndoRecord}) that unmakeMove uses to take the move back
+     */
+    public int makeMove(int move) {
+        int from = MoveList.from(move);
+        int to = MoveList.to(move);
+        int promotion = MoveList.promotionCode(move);
+        ChessPiece moving = board[from >>> 3][from & 7];
+        if (moving == null) {
+            throw new IllegalArgumentException("Invalid move, Piece not found");
         }
+        ChessPiece captured = board[to >>> 3][to & 7];
+        int movedIndex = BitboardUtil.pieceIndex(moving);
+        int undo = UndoRecord.pack(move, movedIndex + 1,
+                captured == null ? 0 : BitboardUtil.pieceIndex(captured) + 1);
+
+        placePiece(from, null);
+        placePiece(to, promotion == 0
+                ? moving
+                : ChessPiece.of(moving.getTeamColor(), PIECE_TYPES[promotion - 1]));
+        return undo;
+    }
 
-        addPiece(move.getStartPosition(), null);
-        addPiece(move.getEndPosition(), piece);
+    /**
+     * Takes back a move made with makeMove. Moves must be taken back in the reverse order they were made.
+     *
+     * @param undo the record returned by makeMove
+     */
+    public void unmakeMove(int undo) {
+        int captured = UndoRecord.capturedIndex(undo);
+        placePiece(UndoRecord.to(undo), captured < 0 ? null : ChessPiece.of(captured));
+        placePiece(UndoRecord.from(undo), ChessPiece.of(UndoRecord.movedIndex(undo)));
     }
 
     /**
@@ -49,7 +257,162 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        placePiece(BitboardUtil.square(position), piece);
+    }
+
+    private void placePiece(int square, ChessPiece piece) {
+        ChessPiece old = board[square >>> 3][square & 7];
+        if (old != null) {
+            unindex(square, old);
+        }
+        board[square >>> 3][square & 7] = piece;
+        if (piece != null) {
+            index(square, piece);
+        }
+        if (attackTracking) {
+            updateAttacks(square, old, piece);
+        }
+    }
+
+    /**
+     * Patches the attack maps after the given square changed: the piece now on it gets fresh attacks,
+     * and so does every slider whose ray reaches the square, since its ray now stops there or runs on.
+     * The ray from a slider to the square does not cross the square itself, so looking along it with
+     * the new occupancy finds the same sliders as the old occupancy would.
+     */
+    private void updateAttacks(int square, ChessPiece old, ChessPiece piece) {
+        if (old != null && (piece == null || old.getTeamColor() != piece.getTeamColor())) {
+            setAttacks(square, old.getTeamColor().ordinal(), 0L);
+        }
+        if (piece != null) {
+            setAttacks(square, piece.getTeamColor().ordinal(), BitboardUtil.attacks(piece, square, occupied));
+        }
+        long queens = pieceBitboards[BitboardUtil.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN)]
+                | pieceBitboards[BitboardUtil.pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN)];
+        long straight = queens
+                | pieceBitboards[BitboardUtil.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)]
+                | pieceBitboards[BitboardUtil.pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)];
+        long diagonal = queens
+                | pieceBitboards[BitboardUtil.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP)]
+                | pieceBitboards[BitboardUtil.pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP)];
+        long sliders = (BitboardUtil.rookAttacks(square, occupied) & straight)
+                | (BitboardUtil.bishopAttacks(square, occupied) & diagonal);
+        while (sliders != 0) {
+            int slider = Long.numberOfTrailingZeros(sliders);
+            ChessPiece sliderPiece = board[slider >>> 3][slider & 7];
+            setAttacks(slider, sliderPiece.getTeamColor().ordinal(),
+                    BitboardUtil.attacks(sliderPiece, slider, occupied));
+            sliders &= sliders - 1;
+        }
+    }
+
+    /**
+     * Replaces the attacks of the piece of the given color on a square, counting each target it gains
+     * or loses against that color and setting or clearing it in the color's union as its count
+     * leaves or reaches zero
+     */
+    private void setAttacks(int square, int color, long attacks) {
+        long old = attacksFrom[square];
+        int[] counts = attackerCounts[color];
+        for (long lost = old & ~attacks; lost != 0; lost &= lost - 1) {
+            int target = Long.numberOfTrailingZeros(lost);
+            if (--counts[target] == 0) {
+                colorAttacks[color] &= ~BitboardUtil.bit(target);
+            }
+        }
+        for (long gained = attacks & ~old; gained != 0; gained &= gained - 1) {
+            int target = Long.numberOfTrailingZeros(gained);
+            if (counts[target]++ == 0) {
+                colorAttacks[color] |= BitboardUtil.bit(target);
+            }
+        }
+        attacksFrom[square] = attacks;
+    }
+
+    private void rebuildAttacks() {
+        attacksFrom = new long[64];
+        attackerCounts = new int[2][64];
+        colorAttacks = new long[2];
+        long pieces = occupied;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            ChessPiece piece = board[square >>> 3][square & 7];
+            setAttacks(square, piece.getTeamColor().ordinal(), BitboardUtil.attacks(piece, square, occupied));
+            pieces &= pieces - 1;
+        }
+    }
+
+    /**
+     * Turns the incrementally maintained attack maps on or off. With tracking on every board change
+     * also patches the attacks of the pieces it affects and the per-square attacker counts, which
+     * makes getAttacks and squareAttacked queries single lookups; with it off they are worked out
+     * from scratch on each call.
+     */
+    public void setAttackTracking(boolean enabled) {
+        attackTracking = enabled;
+        if (enabled) {
+            rebuildAttacks();
+        } else {
+            attacksFrom = null;
+            attackerCounts = null;
+            colorAttacks = null;
+        }
+    }
+
+    public boolean isAttackTracking() {
+        return attackTracking;
+    }
+
+    /**
+     * @return mask of every square at least one piece of the given color attacks
+     */
+    public long getAttacks(ChessGame.TeamColor color) {
+        if (!attackTracking) {
+            long attacks = 0L;
+            long pieces = colorOccupancy[color.ordinal()];
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                attacks |= BitboardUtil.attacks(board[square >>> 3][square & 7], square, occupied);
+                pieces &= pieces - 1;
+            }
+            return attacks;
+        }
+        return colorAttacks[color.ordinal()];
+    }
+
+    private void index(int square, ChessPiece piece) {
+        long b = BitboardUtil.bit(square);
+        int color = piece.getTeamColor().ordinal();
+        int pieceIndex = BitboardUtil.pieceIndex(piece);
+        pieceBitboards[pieceIndex] |= b;
+        colorOccupancy[color] |= b;
+        occupied |= b;
+        zobristKey ^= Zobrist.pieceKey(pieceIndex, square);
+
+        pieceListIndex[square] = pieceCounts[color];
+        pieceLists[color][pieceCounts[color]++] = square;
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[color] = square;
+        }
+    }
+
+    private void unindex(int square, ChessPiece piece) {
+        long b = BitboardUtil.bit(square);
+        int color = piece.getTeamColor().ordinal();
+        int pieceIndex = BitboardUtil.pieceIndex(piece);
+        pieceBitboards[pieceIndex] &= ~b;
+        colorOccupancy[color] &= ~b;
+        occupied &= ~b;
+        zobristKey ^= Zobrist.pieceKey(pieceIndex, square);
+
+        int slot = pieceListIndex[square];
+        int last = pieceLists[color][--pieceCounts[color]];
+        pieceLists[color][slot] = last;
+        pieceListIndex[last] = slot;
+        if (kingSquares[color] == square) {
+            long kings = pieceBitboards[pieceIndex];
+            kingSquares[color] = kings == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(kings);
+        }
     }
 
     /**
@@ -63,41 +426,137 @@ public class ChessBoard {
         return board[position.getRow() - 1][position.getColumn() - 1];
     }
 
-    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
-        for (int x = 1; x <= 8; x++) {
-            for (int y = 1; y <= 8; y++) {
-                ChessPosition pos = new ChessPosition(y, x);
-                ChessPiece p = getPiece(pos);
-                if (p != null && p.getTeamColor() == color && p.getPieceType() == ChessPiece.PieceType.KING) {
-                    return pos;
-                }
-            }
-        }
+    /**
+     * @param square square index, see {@link BitboardUtil#square(int, int)}
+     * @return Either the piece on the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
+    /**
+     * @return mask of the squares holding pieces of the given color and type
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBitboards[BitboardUtil.pieceIndex(color, type)];
+    }
+
+    /**
+     * @return mask of the squares holding pieces of the given color
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colorOccupancy[color.ordinal()];
+    }
 
-        return ChessPosition.INVALID_POSITION;
+    /**
+     * @return 64-bit Zobrist key of the piece placement. Boards with the same pieces on the same
+     * squares always share a key, see {@link Zobrist}.
+     */
+    public long positionKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return mask of every occupied square
+     */
+    public long getOccupied() {
+        return occupied;
     }
 
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = getKingSquare(color);
+        return square == NO_SQUARE ? ChessPosition.INVALID_POSITION : ChessPosition.of(square);
+    }
+
+    /**
+     * @return square index of the team's king, or NO_SQUARE if it has none
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        return kingSquares[color.ordinal()];
+    }
 
     public Collection<ChessPosition> getTeamPieceLocs(ChessGame.TeamColor color) {
-        ArrayList<ChessPosition> locs = new ArrayList<>();
-        for (int x = 0; x < 8; x++) {
-            for (int y = 0; y < 8; y++) {
-                ChessPosition pos = new ChessPosition(y + 1, x + 1);
-                ChessPiece p = getPiece(pos);
-                if (p != null && p.getTeamColor() == color) {
-                    locs.add(new ChessPosition(y + 1, x + 1));
-                }
-            }
+        int c = color.ordinal();
+        ArrayList<ChessPosition> locs = new ArrayList<>(pieceCounts[c]);
+        for (int i = 0; i < pieceCounts[c]; i++) {
+            locs.add(ChessPosition.of(pieceLists[c][i]));
         }
         return locs;
     }
 
+    /**
+     * @return how many pieces the team has on the board
+     */
+    public int getPieceCount(ChessGame.TeamColor color) {
+        return pieceCounts[color.ordinal()];
+    }
+
+    /**
+     * Reads the team's piece list without copying it. The order of the list changes as pieces move.
+     *
+     * @param i index into the list, from 0 to getPieceCount(color) - 1
+     * @return square index of the i'th piece
+     */
+    public int getPieceSquare(ChessGame.TeamColor color, int i) {
+        return pieceLists[color.ordinal()][i];
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
         board = Utils.getNewBoard();
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        pieceBitboards = new long[BitboardUtil.PIECE_KINDS];
+        colorOccupancy = new long[2];
+        occupied = 0L;
+        zobristKey = 0L;
+        kingSquares = new int[]{NO_SQUARE, NO_SQUARE};
+        pieceLists = new int[2][64];
+        pieceCounts = new int[2];
+        pieceListIndex = new int[64];
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board[square >>> 3][square & 7];
+            if (piece != null) {
+                // Swap in the shared instance, boards read back by Gson otherwise hold a copy per square
+                piece = ChessPiece.of(piece.getTeamColor(), piece.getPieceType());
+                board[square >>> 3][square & 7] = piece;
+                index(square, piece);
+            }
+        }
+        if (attackTracking) {
+            rebuildAttacks();
+        }
+    }
+
+    /**
+     * Reads and writes boards with Gson's usual field-by-field adapter, then indexes each board it
+     * reads, since Gson fills in the board array after the constructor has run
+     */
+    static class IndexingAdapter implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            TypeAdapter<T> fields = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    fields.write(out, value);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    T value = fields.read(in);
+                    if (value != null) {
+                        ((ChessBoard) value).rebuildIndex();
+                    }
+                    return value;
+                }
+            };
+        }
     }
 
     @Override
@@ -105,7 +564,7 @@ public class ChessBoard {
         StringBuilder sb = new StringBuilder();
         for (int x = 0; x < 8; x++) {
             for (int y = 0; y < 8; y++) {
-                ChessPiece gp = getPiece(new ChessPosition(y + 1, x + 1));
+                ChessPiece gp = getPiece(ChessPosition.of(y + 1, x + 1));
                 if (gp == null) {
                     sb.append("   |");
                 } else {
@@ -124,9 +583,13 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(board, that.board);
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
+    /**
+     * The returned array is the board's backing storage and should be treated as read only,
+     * changes must go through addPiece so the bitboards stay in sync
+     */
     public ChessPiece[][] getBoardData() {
         return board;
     }
@@ -134,7 +597,7 @@ public class ChessBoard {
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(positionKey());
     }
 
     public ChessBoard copy() {
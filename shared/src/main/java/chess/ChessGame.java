@@ -1,7 +1,19 @@
 package chess;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -11,10 +23,54 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGame.TrimmingAdapter.class)
 public class ChessGame {
     ChessBoard cboard;
     TeamColor teamTurn;
     GameState state;
+    // Undo records (see UndoRecord) of every move made through makeMove, oldest first, in a buffer that
+    // doubles when full. Only the first moveCount entries are saved, see TrimmingAdapter.
+    private int[] moveHistory = new int[INITIAL_HISTORY];
+    private int moveCount;
+    // Plies since the last capture or pawn move
+    private int halfmoveClock;
+    // positionKey() before each of the last keyCount moves, all made since the last capture or pawn move
+    // as nothing earlier can repeat. Rebuilt from the move history on first use after loading from JSON.
+    private transient long[] keyHistory;
+    private transient int keyCount;
+    private transient MoveEngine moveEngine = MoveEngine.PIN_AWARE;
+    // Legal moves for the side to move, reused until a move is made or the position key changes
+    private transient MoveList turnMoves;
+    private transient List<ChessMove> turnMoveList;
+    private transient long turnMovesKey;
+    private transient GameState turnState;
+    // Key of the last position the shared cache missed, until its moves are generated and put in the
+    // cache, so generating them does not look the position up a second time
+    private transient long cacheMissKey;
+    private transient boolean cacheMissed;
+    // Optional cache shared by every game, see setPositionCache
+    private static volatile PositionCache positionCache;
+
+    // Size of the binary encoding written by write(ByteBuffer): the board, then turn and state bytes
+    public static final int ENCODED_SIZE = ChessBoard.ENCODED_SIZE + 2;
+    // States by the code write(ByteBuffer) stores for them. The codes are fixed rather than taken from
+    // the enum's order so encoded games keep decoding the same; new states get the next code.
+    private static final GameState[] STATE_CODES = {
+            GameState.WHITE_WIN_CHECKMATE, GameState.BLACK_WIN_CHECKMATE, GameState.WHITE_WIN_OPP_RESIGN,
+            GameState.BLACK_WIN_OPP_RESIGN, GameState.DRAW_STALEMATE, GameState.WHITE_CHECK, GameState.BLACK_CHECK,
+            GameState.NORMAL, GameState.DRAW_REPETITION, GameState.DRAW_FIFTY_MOVE
+    };
+    private static final int[] CODE_OF_STATE = new int[STATE_CODES.length];
+    private static final int INITIAL_HISTORY = 32;
+    private static final int INITIAL_KEYS = 16;
+    // Plies without a capture or pawn move after which the game is drawn
+    public static final int FIFTY_MOVE_PLIES = 100;
+
+    static {
+        for (int code = 0; code < STATE_CODES.length; code++) {
+            CODE_OF_STATE[STATE_CODES[code].ordinal()] = code;
+        }
+    }
 
     public enum GameState{
         WHITE_WIN_CHECKMATE,
@@ -24,16 +80,74 @@ public class ChessGame {
         DRAW_STALEMATE,
         WHITE_CHECK,
         BLACK_CHECK,
-        NORMAL;
+        NORMAL,
+        // Added after the rest, so stored ordinals of the older states keep their meaning
+        DRAW_REPETITION,
+        DRAW_FIFTY_MOVE;
         public boolean isGameOver(){
             return switch (this) {
                 case BLACK_WIN_CHECKMATE, WHITE_WIN_CHECKMATE, BLACK_WIN_OPP_RESIGN, WHITE_WIN_OPP_RESIGN,
-                     DRAW_STALEMATE -> true;
+                     DRAW_STALEMATE, DRAW_REPETITION, DRAW_FIFTY_MOVE -> true;
                 default -> false;
             };
         }
     }
 
+    /**
+     * The ways validMoves can decide which moves are legal
+     */
+    public enum MoveEngine {
+        // Plays each pseudo-legal move on the board and checks whether the king is attacked
+        MAKE_UNMAKE {
+            @Override
+            public void legalMoves(ChessBoard board, int square, MoveList moves) {
+                LegalMoveUtil.legalMoves(board, square, moves);
+            }
+
+            @Override
+            public void allLegalMoves(ChessBoard board, TeamColor color, MoveList moves) {
+                LegalMoveUtil.allLegalMoves(board, color, moves);
+            }
+
+            @Override
+            public boolean hasLegalMove(ChessBoard board, TeamColor color) {
+                return LegalMoveUtil.hasLegalMove(board, color);
+            }
+        },
+        // Works out checks and pins once and only ever generates legal moves
+        PIN_AWARE {
+            @Override
+            public void legalMoves(ChessBoard board, int square, MoveList moves) {
+                PinAwareMoveUtil.legalMoves(board, square, moves);
+            }
+
+            @Override
+            public void allLegalMoves(ChessBoard board, TeamColor color, MoveList moves) {
+                PinAwareMoveUtil.allLegalMoves(board, color, moves);
+            }
+
+            @Override
+            public boolean hasLegalMove(ChessBoard board, TeamColor color) {
+                return PinAwareMoveUtil.hasLegalMove(board, color);
+            }
+        };
+
+        /**
+         * Appends the legal moves for the piece on the given square, nothing if the square is empty
+         */
+        public abstract void legalMoves(ChessBoard board, int square, MoveList moves);
+
+        /**
+         * Appends every legal move the given team could make
+         */
+        public abstract void allLegalMoves(ChessBoard board, TeamColor color, MoveList moves);
+
+        /**
+         * @return True if the given team has any legal move, stopping at the first one found
+         */
+        public abstract boolean hasLegalMove(ChessBoard board, TeamColor color);
+    }
+
     public ChessGame() {
         cboard = new ChessBoard();
         cboard.resetBoard();
@@ -41,6 +155,12 @@ public class ChessGame {
         state = GameState.NORMAL;
     }
 
+    private ChessGame(ChessBoard board, TeamColor teamTurn, GameState state) {
+        this.cboard = board;
+        this.teamTurn = teamTurn;
+        this.state = state;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -55,10 +175,12 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         teamTurn = team;
+        invalidateMoves();
     }
 
     public void toggleTeamTurn() {
         teamTurn = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        invalidateMoves();
     }
 
     /**
@@ -81,26 +203,111 @@ public class ChessGame {
         if (piece == null) {
             return List.of();
         }
-        Collection<ChessMove> potentialMoves = piece.pieceMoves(cboard, startPosition);
-        ArrayList<ChessMove> allowedMoves = new ArrayList<>();
-        for (ChessMove move : potentialMoves) {
-            ChessBoard testBoard = cboard.copy();
-
-            try {
-                testBoard.movePiece(move);
-            } catch (InvalidMoveException e) {
-                throw new RuntimeException(e);
+        int square = BitboardUtil.square(startPosition);
+        MoveList moves = new MoveList();
+        if (piece.getTeamColor() == teamTurn) {
+            MoveList turn = turnMoves();
+            for (int i = 0; i < turn.size(); i++) {
+                if (MoveList.from(turn.get(i)) == square) {
+                    moves.add(turn.get(i));
+                }
             }
+        } else {
+            moveEngine.legalMoves(cboard, square, moves);
+        }
+        return moves.toChessMoves();
+    }
 
-            ChessPosition kingPos = testBoard.getKingPosition(piece.getTeamColor());
-            if (!kingPos.isValid()) {
-                throw new RuntimeException("King not found");
-            }
-            if (!KingTargetedUtil.pieceTargeted(testBoard, kingPos)) {
-                allowedMoves.add(move);
+    /**
+     * Gets every valid move for the team whose turn it is. The set is worked out once per position
+     * and shared by later calls, validMoves and makeMove until a move is made.
+     *
+     * @return unmodifiable collection of the valid moves for the side to move
+     */
+    public Collection<ChessMove> allValidMoves() {
+        turnMoves();
+        if (turnMoveList == null) {
+            turnMoveList = Collections.unmodifiableList(turnMoves.toChessMoves());
+        }
+        return turnMoveList;
+    }
+
+    private MoveList turnMoves() {
+        long key = positionKey();
+        if ((turnMoves == null || turnMovesKey != key) && probeCache(key) == null) {
+            MoveList moves = new MoveList();
+            moveEngine.allLegalMoves(cboard, teamTurn, moves);
+            setTurnMoves(key, moves, classify(teamTurn, isInCheck(teamTurn), !moves.isEmpty()));
+            PositionCache cache = positionCache;
+            if (cache != null) {
+                cache.put(key, moves, turnState);
+                cacheMissed = false;
             }
         }
-        return allowedMoves;
+        return turnMoves;
+    }
+
+    /**
+     * Looks the side to move's position up in the shared cache, once per position: a hit fills in the
+     * move set, and a miss is remembered so generating the moves afterwards does not count another
+     *
+     * @return the cached entry, or null if there is no cache or the position is not in it
+     */
+    private PositionCache.Entry probeCache(long key) {
+        PositionCache cache = positionCache;
+        if (cache == null || cacheMissed && cacheMissKey == key) {
+            return null;
+        }
+        PositionCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            MoveList moves = new MoveList();
+            cached.copyMovesTo(moves);
+            setTurnMoves(key, moves, cached.state());
+        } else {
+            cacheMissKey = key;
+            cacheMissed = true;
+        }
+        return cached;
+    }
+
+    private void setTurnMoves(long key, MoveList moves, GameState state) {
+        turnMoves = moves;
+        turnMoveList = null;
+        turnMovesKey = key;
+        turnState = state;
+    }
+
+    private void invalidateMoves() {
+        turnMoves = null;
+        turnMoveList = null;
+    }
+
+    /**
+     * Shares a cache of legal moves and classifications between every game in this process, so games
+     * passing through the same positions only generate them once. Pass null to stop caching.
+     */
+    public static void setPositionCache(PositionCache cache) {
+        positionCache = cache;
+    }
+
+    /**
+     * @return the shared position cache, or null if caching is off
+     */
+    public static PositionCache getPositionCache() {
+        return positionCache;
+    }
+
+    public MoveEngine getMoveEngine() {
+        return moveEngine;
+    }
+
+    /**
+     * Switches how legal moves are worked out. Moves already cached for the position came from the
+     * previous engine, so they are dropped.
+     */
+    public void setMoveEngine(MoveEngine moveEngine) {
+        this.moveEngine = moveEngine;
+        invalidateMoves();
     }
 
     /**
@@ -110,35 +317,279 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        Collection<ChessMove> legalMoves = validMoves(move.getStartPosition());
-        ChessPiece piece = cboard.getPiece(move.getStartPosition());
-        if (!legalMoves.contains(move)) {
+        if (!isValidMove(move)) {
             throw new InvalidMoveException("The move " + move + " is invalid");
-        } else if (piece.getTeamColor() != getTeamTurn()) {
+        } else if (cboard.getPiece(move.getStartPosition()).getTeamColor() != getTeamTurn()) {
             throw new InvalidMoveException("Incorrect player made a move");
         } else {
-            cboard.movePiece(move);
+            long key = positionKey();
+            long[] keys = keyHistory();
+            recordMove(cboard.makeMove(MoveList.encode(move)), key, keys);
             toggleTeamTurn();
         }
         updateGameState();
     }
 
+    private void recordMove(int undo, long keyBefore, long[] keys) {
+        if (moveCount == moveHistory.length) {
+            moveHistory = Arrays.copyOf(moveHistory, Math.max(INITIAL_HISTORY, moveCount * 2));
+        }
+        moveHistory[moveCount++] = undo;
+        if (UndoRecord.isIrreversible(undo)) {
+            halfmoveClock = 0;
+            keyCount = 0;
+            return;
+        }
+        halfmoveClock++;
+        if (keyCount == keys.length) {
+            keys = keyHistory = Arrays.copyOf(keys, keyCount * 2);
+        }
+        keys[keyCount++] = keyBefore;
+    }
+
+    /**
+     * Fills in the keys since the last irreversible move by taking those moves back on a copy of the
+     * board, for games loaded without them
+     */
+    private long[] keyHistory() {
+        if (moveHistory == null) {
+            moveHistory = new int[INITIAL_HISTORY];
+            moveCount = 0;
+        }
+        if (keyHistory == null) {
+            int count = Math.min(halfmoveClock, moveCount);
+            long[] keys = new long[Math.max(INITIAL_KEYS, count * 2)];
+            ChessBoard board = cboard.copy();
+            TeamColor turn = teamTurn;
+            for (int i = count - 1; i >= 0; i--) {
+                board.unmakeMove(moveHistory[moveCount - count + i]);
+                turn = BitboardUtil.opponent(turn);
+                long key = board.positionKey();
+                keys[i] = turn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+            }
+            keyHistory = keys;
+            keyCount = count;
+        }
+        return keyHistory;
+    }
+
+    /**
+     * @return plies since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return positionKey() of each position since the last capture or pawn move, oldest first and
+     * not including the current one; only these can recur from here
+     */
+    public long[] repetitionKeys() {
+        long[] keys = keyHistory();
+        return Arrays.copyOf(keys, keyCount);
+    }
+
+    /**
+     * Counts earlier occurrences of the current position with the same side to move. Only every
+     * other ply back to the last capture or pawn move is compared, since nothing before it can
+     * recur, and the fifty-move rule ends the game before that stretch passes 100 plies.
+     *
+     * @return how many times the current position occurred before
+     */
+    public int repetitionCount() {
+        if (getMoveCount() == 0) {
+            return 0;
+        }
+        long[] keys = keyHistory();
+        long key = positionKey();
+        int count = 0;
+        for (int i = keyCount - 2; i >= 0; i -= 2) {
+            if (keys[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return number of moves made through makeMove since the game started or the board was last set
+     */
+    public int getMoveCount() {
+        return moveHistory == null ? 0 : moveCount;
+    }
+
+    /**
+     * @param ply index of the move, from 0 to getMoveCount() - 1
+     * @return the undo record of that move, see {@link UndoRecord}
+     */
+    public int getUndoRecord(int ply) {
+        checkPly(ply, getMoveCount() - 1);
+        return moveHistory[ply];
+    }
+
+    /**
+     * @param ply index of the move, from 0 to getMoveCount() - 1
+     */
+    public ChessMove getMove(int ply) {
+        return MoveList.toChessMove(UndoRecord.move(getUndoRecord(ply)));
+    }
+
+    /**
+     * @return every move made so far, oldest first
+     */
+    public List<ChessMove> getMoveHistory() {
+        int count = getMoveCount();
+        List<ChessMove> moves = new ArrayList<>(count);
+        for (int ply = 0; ply < count; ply++) {
+            moves.add(MoveList.toChessMove(UndoRecord.move(moveHistory[ply])));
+        }
+        return moves;
+    }
+
+    /**
+     * Rebuilds the game as it stood before the move at the given ply by taking moves back on a copy
+     * of the current board, so no position along the way is stored
+     *
+     * @param ply 0 for the starting position up to getMoveCount() for the current one
+     * @return a new game in that position, with no move history of its own
+     */
+    public ChessGame positionAt(int ply) {
+        ChessBoard board = boardAt(ply);
+        TeamColor turn = turnAt(ply);
+        ChessGame game = new ChessGame(board, turn, GameState.NORMAL);
+        game.moveEngine = moveEngine;
+        if (board.getKingSquare(turn) != ChessBoard.NO_SQUARE) {
+            game.state = game.classifyPosition(turn);
+        }
+        return game;
+    }
+
+    /**
+     * Receives each position while a game is replayed
+     */
+    @FunctionalInterface
+    public interface ReplayListener {
+        /**
+         * @param ply   number of moves made once this move is on the board
+         * @param move  the move just played
+         * @param board the board after the move. It is reused for the next move, copy it to keep it.
+         */
+        void onMove(int ply, ChessMove move, ChessBoard board);
+    }
+
+    /**
+     * Plays the moves between two plies forward on a single scratch board, which is found by taking
+     * moves back from a copy of the current board
+     *
+     * @param fromPly  ply to start from, 0 for the starting position
+     * @param toPly    ply to stop at, at most getMoveCount()
+     * @param listener called after each move
+     */
+    public void replay(int fromPly, int toPly, ReplayListener listener) {
+        checkPly(toPly, getMoveCount());
+        if (fromPly > toPly) {
+            throw new IllegalArgumentException("Replay start " + fromPly + " is after its end " + toPly);
+        }
+        ChessBoard board = boardAt(fromPly);
+        for (int ply = fromPly; ply < toPly; ply++) {
+            int move = UndoRecord.move(moveHistory[ply]);
+            board.makeMove(move);
+            listener.onMove(ply + 1, MoveList.toChessMove(move), board);
+        }
+    }
+
+    private ChessBoard boardAt(int ply) {
+        checkPly(ply, getMoveCount());
+        ChessBoard board = cboard.copy();
+        for (int i = getMoveCount() - 1; i >= ply; i--) {
+            board.unmakeMove(moveHistory[i]);
+        }
+        return board;
+    }
+
+    private TeamColor turnAt(int ply) {
+        if (ply == getMoveCount()) {
+            return teamTurn;
+        }
+        return ChessPiece.of(UndoRecord.movedIndex(moveHistory[ply])).getTeamColor();
+    }
+
+    private static void checkPly(int ply, int max) {
+        if (ply < 0 || ply > max) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " out of range 0 to " + max);
+        }
+    }
+
+    private boolean isValidMove(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        if (!start.isValid() || !move.getEndPosition().isValid()) {
+            return false;
+        }
+        ChessPiece piece = cboard.getPiece(start);
+        if (piece == null) {
+            return false;
+        }
+        if (piece.getTeamColor() != teamTurn) {
+            return validMoves(start).contains(move);
+        }
+        return turnMoves().contains(MoveList.encode(move));
+    }
+
+    /**
+     * Sets the state after a move. Checkmate and stalemate stand over the draw rules; otherwise the
+     * game is drawn once the same position occurs a third time or after 100 plies without a capture
+     * or pawn move.
+     */
     private void updateGameState(){
-        if(isInCheckmate(teamTurn)){
-            state = teamTurn.equals(TeamColor.WHITE)
-                    ? GameState.BLACK_WIN_CHECKMATE
-                    : GameState.WHITE_WIN_CHECKMATE;
-        }else if(isInStalemate(teamTurn)){
-            state = GameState.DRAW_STALEMATE;
-        } else if(isInCheck(teamTurn)){
-            state =  teamTurn.equals(TeamColor.WHITE)
-                    ? GameState.WHITE_CHECK
-                    : GameState.BLACK_CHECK;
-        }else{
-            state = GameState.NORMAL;
+        state = classifyPosition(teamTurn);
+        if (state.isGameOver()) {
+            return;
         }
+        if (halfmoveClock >= FIFTY_MOVE_PLIES) {
+            state = GameState.DRAW_FIFTY_MOVE;
+        } else if (repetitionCount() >= 2) {
+            state = GameState.DRAW_REPETITION;
+        }
+    }
 
+    /**
+     * Works out whether the given team is in check, checkmate or stalemate in a single pass: the king
+     * is tested for attack once and move generation stops at the first legal move it finds. For the
+     * side to move the answer is read instead from the move set when it is already known, or from the
+     * position cache when the position is in it; a cache miss still takes the early-exit pass rather
+     * than generating every move.
+     *
+     * @param teamColor the team to classify the position for
+     * @return the checkmate, stalemate, check or normal state for the position
+     */
+    public GameState classifyPosition(TeamColor teamColor) {
+        if (teamColor == teamTurn) {
+            long key = positionKey();
+            if (turnMoves != null && turnMovesKey == key) {
+                return turnState;
+            }
+            PositionCache.Entry cached = probeCache(key);
+            if (cached != null) {
+                return cached.state();
+            }
+        }
+        return classify(teamColor, isInCheck(teamColor), moveEngine.hasLegalMove(cboard, teamColor));
+    }
+
+    private static GameState classify(TeamColor teamColor, boolean inCheck, boolean canMove) {
+        boolean white = teamColor == TeamColor.WHITE;
+        if (!canMove) {
+            if (!inCheck) {
+                return GameState.DRAW_STALEMATE;
+            }
+            return white ? GameState.BLACK_WIN_CHECKMATE : GameState.WHITE_WIN_CHECKMATE;
+        }
+        if (inCheck) {
+            return white ? GameState.WHITE_CHECK : GameState.BLACK_CHECK;
+        }
+        return GameState.NORMAL;
     }
+
     /**
      * Determines if the given team is in check
      *
@@ -146,11 +597,11 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPos = cboard.getKingPosition(teamColor);
-        if (!kingPos.isValid()) {
+        int king = cboard.getKingSquare(teamColor);
+        if (king == ChessBoard.NO_SQUARE) {
             throw new RuntimeException("King not found");
         }
-        return KingTargetedUtil.pieceTargeted(cboard, kingPos);
+        return KingTargetedUtil.squareAttacked(cboard, king, BitboardUtil.opponent(teamColor));
     }
 
     /**
@@ -160,7 +611,8 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        return noValidMoves(teamColor) && isInCheck(teamColor);
+        GameState classified = classifyPosition(teamColor);
+        return classified == GameState.WHITE_WIN_CHECKMATE || classified == GameState.BLACK_WIN_CHECKMATE;
     }
 
     /**
@@ -171,20 +623,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        return noValidMoves(teamColor) && !isInCheck(teamColor);
-    }
-
-    private boolean noValidMoves(TeamColor teamColor) {
-        Collection<ChessPosition> teamPieceLocations = cboard.getTeamPieceLocs(teamColor);
-        if (teamPieceLocations.isEmpty()) {
-            return true;
-        }
-        for (ChessPosition pos : teamPieceLocations) {
-            if (!validMoves(pos).isEmpty()) {
-                return false;
-            }
-        }
-        return true;
+        return classifyPosition(teamColor) == GameState.DRAW_STALEMATE;
     }
 
     /**
@@ -194,6 +633,11 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         cboard = board;
+        moveHistory = new int[INITIAL_HISTORY];
+        moveCount = 0;
+        halfmoveClock = 0;
+        keyHistory = null;
+        invalidateMoves();
     }
 
     /**
@@ -206,6 +650,145 @@ public class ChessGame {
     }
 
 
+    /**
+     * Reads and writes games with Gson's usual field-by-field adapter, but writes a copy whose move
+     * history is cut down to the moves made, so the unused end of the buffer is not saved
+     */
+    static class TrimmingAdapter implements TypeAdapterFactory {
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            TypeAdapter<T> fields = gson.getDelegateAdapter(this, type);
+            return new TypeAdapter<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void write(JsonWriter out, T value) throws IOException {
+                    fields.write(out, value == null ? null : (T) trimmed((ChessGame) value));
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    return fields.read(in);
+                }
+            };
+        }
+
+        private static ChessGame trimmed(ChessGame game) {
+            if (game.moveHistory == null || game.moveHistory.length == game.moveCount) {
+                return game;
+            }
+            ChessGame copy = new ChessGame(game.cboard, game.teamTurn, game.state);
+            copy.moveHistory = Arrays.copyOf(game.moveHistory, game.moveCount);
+            copy.moveCount = game.moveCount;
+            copy.halfmoveClock = game.halfmoveClock;
+            return copy;
+        }
+    }
+
+    /**
+     * Writes the position as a FEN string. Castling and en passant do not exist in this ruleset so
+     * those fields are always "-", and the fullmove number is always written as 1.
+     *
+     * @return FEN string for the board and side to move
+     */
+    public String toFen() {
+        return cboard.toFen() + (teamTurn == TeamColor.WHITE ? " w" : " b") + " - - " + halfmoveClock + " 1";
+    }
+
+    /**
+     * Creates a game from a FEN string. Only the piece placement, side to move and halfmove clock
+     * are read, the side to move defaulting to white and the clock to 0 when missing. The state is
+     * worked out from the position, so a checkmate, stalemate or expired fifty-move clock in the FEN
+     * is reported as such.
+     *
+     * @param fen the FEN string to read
+     * @return a new game in the described position
+     * @throws IllegalArgumentException if the placement, side to move or halfmove clock is malformed
+     */
+    public static ChessGame fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessBoard board = ChessBoard.fromFen(fields[0]);
+        if (fields.length > 1 && !fields[1].equals("w") && !fields[1].equals("b")) {
+            throw new IllegalArgumentException("FEN side to move must be w or b: " + fen);
+        }
+        ChessGame game = new ChessGame(board,
+                fields.length > 1 && fields[1].equals("b") ? TeamColor.BLACK : TeamColor.WHITE, GameState.NORMAL);
+        if (fields.length > 4) {
+            game.halfmoveClock = parseHalfmoveClock(fields[4], fen);
+        }
+        if (game.cboard.getKingSquare(game.teamTurn) != ChessBoard.NO_SQUARE) {
+            game.updateGameState();
+        }
+        return game;
+    }
+
+    private static int parseHalfmoveClock(String field, String fen) {
+        int clock;
+        try {
+            clock = Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("FEN halfmove clock must be a number: " + fen, e);
+        }
+        if (clock < 0) {
+            throw new IllegalArgumentException("FEN halfmove clock must not be negative: " + fen);
+        }
+        return clock;
+    }
+
+    /**
+     * Writes the game as {@link #ENCODED_SIZE} bytes: the board (see {@link ChessBoard#write}), then
+     * one byte holding the side to move in bit 0 (0 for white, 1 for black) and the halfmove clock in
+     * the bits above it, then one byte holding the state's code. A clock past 100 plies is written as
+     * 100, since the game is drawn either way. The move history is not written, so a decoded game
+     * starts with an empty history and only counts repetitions of positions reached after decoding.
+     *
+     * @param buffer buffer to write to
+     */
+    public void write(ByteBuffer buffer) {
+        cboard.write(buffer);
+        int turn = teamTurn == TeamColor.WHITE ? 0 : 1;
+        buffer.put((byte) (turn | Math.min(halfmoveClock, FIFTY_MOVE_PLIES) << 1));
+        buffer.put((byte) CODE_OF_STATE[state.ordinal()]);
+    }
+
+    /**
+     * Reads a game written by {@link #write(ByteBuffer)}
+     *
+     * @param buffer buffer to read from
+     * @throws IllegalArgumentException if the bytes do not describe a game
+     */
+    public static ChessGame read(ByteBuffer buffer) {
+        ChessBoard board = ChessBoard.read(buffer);
+        int turnAndClock = buffer.get() & 0xFF;
+        int stateCode = buffer.get() & 0xFF;
+        int clock = turnAndClock >>> 1;
+        if (clock > FIFTY_MOVE_PLIES || stateCode >= STATE_CODES.length) {
+            throw new IllegalArgumentException("Invalid turn, halfmove clock or state in encoded game");
+        }
+        ChessGame game = new ChessGame(board, (turnAndClock & 1) == 0 ? TeamColor.WHITE : TeamColor.BLACK,
+                STATE_CODES[stateCode]);
+        game.halfmoveClock = clock;
+        return game;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_SIZE);
+        write(buffer);
+        return buffer.array();
+    }
+
+    public static ChessGame fromBytes(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * @return 64-bit Zobrist key of the position, covering the piece placement and whose turn it is.
+     * Cheap enough to key caches and repetition checks on.
+     */
+    public long positionKey() {
+        long key = cboard.positionKey();
+        return teamTurn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
     public GameState getState() {
         return state;
     }
@@ -225,6 +808,6 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(cboard, teamTurn, state);
+        return 31 * Long.hashCode(positionKey()) + Objects.hashCode(state);
     }
 }
@@ -10,6 +10,11 @@ import java.util.Objects;
  */
 public class ChessMove {
 
+    private static final int PROMOTION_KINDS = ChessPiece.PieceType.values().length + 1;
+    // Shared instances for every start/end/promotion combination on the board, filled on first use.
+    // Racing threads can at worst each build an equal instance, which is harmless.
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * PROMOTION_KINDS];
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
@@ -21,6 +26,34 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Returns the shared instance for a move between two squares
+     *
+     * @param from      start square index, see {@link BitboardUtil#square(int, int)}
+     * @param to        end square index
+     * @param promotion type to promote to, or null if no promotion
+     */
+    public static ChessMove of(int from, int to, ChessPiece.PieceType promotion) {
+        int index = ((from << 6) | to) * PROMOTION_KINDS + (promotion == null ? 0 : promotion.ordinal() + 1);
+        ChessMove move = MOVES[index];
+        if (move == null) {
+            move = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotion);
+            MOVES[index] = move;
+        }
+        return move;
+    }
+
+    /**
+     * Returns the shared instance for a move if both positions are on the board, otherwise a new move
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!startPosition.isValid() || !endPosition.isValid()) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(BitboardUtil.square(startPosition), BitboardUtil.square(endPosition), promotionPiece);
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -53,6 +86,9 @@ public class ChessMove {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -64,6 +100,8 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        // Same value as Objects.hash(startPosition, endPosition, promotionPiece) without the varargs array
+        return 31 * (31 * (31 + Objects.hashCode(startPosition)) + Objects.hashCode(endPosition))
+                + Objects.hashCode(promotionPiece);
     }
 }
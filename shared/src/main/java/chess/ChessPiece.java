@@ -11,6 +11,18 @@ import java.util.Objects;
  */
 public class ChessPiece {
 
+    private static final PieceType[] TYPES = PieceType.values();
+    // One shared instance per color and type, indexed like BitboardUtil.pieceIndex
+    private static final ChessPiece[] PIECES = new ChessPiece[ChessGame.TeamColor.values().length * TYPES.length];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : TYPES) {
+                PIECES[color.ordinal() * TYPES.length + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
@@ -19,6 +31,21 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * @return the shared instance for the given color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal() * TYPES.length + type.ordinal()];
+    }
+
+    /**
+     * @param pieceIndex see {@link BitboardUtil#pieceIndex}
+     * @return the shared instance for that color and type
+     */
+    public static ChessPiece of(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -82,8 +109,43 @@ public class ChessPiece {
         return color + ":" + t;
     }
 
+    /**
+     * @return the FEN letter for this piece, upper case for white and lower case for black
+     */
+    public char toFenChar() {
+        char c = switch (type) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return pieceColor == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * @return the shared instance for a FEN piece letter
+     * @throws IllegalArgumentException if the letter is not a FEN piece
+     */
+    public static ChessPiece fromFenChar(char c) {
+        PieceType pieceType = switch (Character.toLowerCase(c)) {
+            case 'k' -> PieceType.KING;
+            case 'q' -> PieceType.QUEEN;
+            case 'b' -> PieceType.BISHOP;
+            case 'n' -> PieceType.KNIGHT;
+            case 'r' -> PieceType.ROOK;
+            case 'p' -> PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown FEN piece '" + c + "'");
+        };
+        return of(Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK, pieceType);
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -93,6 +155,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        // Same value as Objects.hash(pieceColor, type) without the varargs array
+        return 31 * (31 + Objects.hashCode(pieceColor)) + Objects.hashCode(type);
     }
 }
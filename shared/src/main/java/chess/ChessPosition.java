@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -12,6 +10,15 @@ public class ChessPosition {
 
     public static final ChessPosition INVALID_POSITION = new ChessPosition(-1, -1);
 
+    // One shared instance per square, indexed by BitboardUtil.square
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int i = 0; i < 64; i++) {
+            SQUARES[i] = new ChessPosition(i / 8 + 1, i % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -20,6 +27,28 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Returns the shared instance for a square on the board. Positions off the board are not
+     * cached and get a new instance.
+     *
+     * @param row 1 codes for the bottom row
+     * @param col 1 codes for the left column
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row > 0 && row <= 8 && col > 0 && col <= 8) {
+            return SQUARES[(row - 1) * 8 + (col - 1)];
+        }
+        return new ChessPosition(row, col);
+    }
+
+    /**
+     * @param square square index, see {@link BitboardUtil#square(int, int)}
+     * @return the shared instance for that square
+     */
+    public static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     public boolean isValid() {
         return row > 0 && row <= 8 && col > 0 && col <= 8;
     }
@@ -47,6 +76,9 @@ public class ChessPosition {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -56,6 +88,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        // Same value as Objects.hash(row, col) without boxing
+        return 31 * (31 + row) + col;
     }
 }
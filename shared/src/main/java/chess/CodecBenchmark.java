@@ -0,0 +1,43 @@
+package chess;
+
+import com.google.gson.Gson;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compares the binary game codec against the Gson round trip used for storage and the websocket.
+ * <p>
+ * Usage: {@code java chess.CodecBenchmark [iterations]}
+ */
+public class CodecBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -");
+        Gson gson = new Gson();
+        String json = gson.toJson(game);
+        System.out.printf("Gson: %d bytes, binary: %d bytes%n", json.length(), ChessGame.ENCODED_SIZE);
+
+        for (int round = 0; round < 3; round++) {
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                checksum += gson.fromJson(gson.toJson(game), ChessGame.class).getBoard().positionKey();
+            }
+            long gsonTime = System.nanoTime() - start;
+
+            ByteBuffer buffer = ByteBuffer.allocate(ChessGame.ENCODED_SIZE);
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                buffer.clear();
+                game.write(buffer);
+                buffer.flip();
+                checksum += ChessGame.read(buffer).getBoard().positionKey();
+            }
+            long binaryTime = System.nanoTime() - start;
+
+            System.out.printf("round %d: gson %,d ns/op, binary %,d ns/op (%.1fx) [%d]%n", round,
+                    gsonTime / iterations, binaryTime / iterations, (double) gsonTime / binaryTime, checksum);
+        }
+    }
+}
@@ -1,66 +1,183 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 public class LegalMoveUtil {
 
+    // Promotion codes in the order the moves are generated
+    private static final int[] PROMOTIONS = {
+            ChessPiece.PieceType.BISHOP.ordinal() + 1,
+            ChessPiece.PieceType.KNIGHT.ordinal() + 1,
+            ChessPiece.PieceType.ROOK.ordinal() + 1,
+            ChessPiece.PieceType.QUEEN.ordinal() + 1
+    };
+
     LegalMoveUtil() {
     }
 
+    /**
+     * Generates the moves for the piece at the given position that do not leave its own king in check.
+     * Each candidate is played on the board and taken back again, so the board is unchanged on return.
+     *
+     * @param board    the board to generate moves on
+     * @param position position of the piece to move
+     * @return the legal moves for the piece, or an empty collection if there is no piece there
+     */
+    public static Collection<ChessMove> legalMoves(ChessBoard board, ChessPosition position) {
+        if (board.getPiece(position) == null) {
+            return List.of();
+        }
+        MoveList moves = new MoveList();
+        legalMoves(board, BitboardUtil.square(position), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends the legal moves for the piece on the given square to a move list, see
+     * {@link #legalMoves(ChessBoard, ChessPosition)}. Nothing is added if the square is empty.
+     */
+    public static void legalMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return;
+        }
+        int start = moves.size();
+        pseudoLegalMoves(board, square, moves);
+        filterLegal(board, piece.getTeamColor(), moves, start);
+    }
+
+    /**
+     * Appends every legal move the given team could make to a move list
+     */
+    public static void allLegalMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        int start = moves.size();
+        long pieces = board.getOccupancy(color);
+        while (pieces != 0) {
+            pseudoLegalMoves(board, Long.numberOfTrailingZeros(pieces), moves);
+            pieces &= pieces - 1;
+        }
+        filterLegal(board, color, moves, start);
+    }
+
+    /**
+     * Stops at the first legal move found, so it is much cheaper than generating them all when the
+     * side to move is not mated or stalemated
+     *
+     * @return True if the given team has at least one legal move
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color) {
+        MoveList moves = new MoveList();
+        long pieces = board.getOccupancy(color);
+        while (pieces != 0) {
+            moves.clear();
+            pseudoLegalMoves(board, Long.numberOfTrailingZeros(pieces), moves);
+            for (int i = 0; i < moves.size(); i++) {
+                if (leavesKingSafe(board, color, moves.get(i))) {
+                    return true;
+                }
+            }
+            pieces &= pieces - 1;
+        }
+        return false;
+    }
+
+    /**
+     * Plays each move from index start onwards and keeps only those that leave the king safe,
+     * compacting the survivors in place
+     */
+    private static void filterLegal(ChessBoard board, ChessGame.TeamColor color, MoveList moves, int start) {
+        int kept = start;
+        for (int i = start; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (leavesKingSafe(board, color, move)) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    private static boolean leavesKingSafe(ChessBoard board, ChessGame.TeamColor color, int move) {
+        int undo = board.makeMove(move);
+        int king = board.getKingSquare(color);
+        boolean safe = king != ChessBoard.NO_SQUARE
+                && !KingTargetedUtil.squareAttacked(board, king, BitboardUtil.opponent(color));
+        board.unmakeMove(undo);
+        if (king == ChessBoard.NO_SQUARE) {
+            throw new RuntimeException("King not found");
+        }
+        return safe;
+    }
+
+    /**
+     * Appends the moves the piece on the given square could make if its own king's safety were ignored
+     */
+    public static void pseudoLegalMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return;
+        }
+        switch (piece.getPieceType()) {
+            case KING -> kingMoves(board, square, moves);
+            case QUEEN -> queenMoves(board, square, moves);
+            case ROOK -> rookMoves(board, square, moves);
+            case KNIGHT -> knightMoves(board, square, moves);
+            case BISHOP -> bishopMoves(board, square, moves);
+            case PAWN -> pawnMoves(board, square, moves);
+        }
+    }
+
     public static Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> cm = new ArrayList<>();
-        ChessPiece myPiece = board.getPiece(myPosition);
+        MoveList moves = new MoveList();
+        kingMoves(board, BitboardUtil.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void kingMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece myPiece = board.getPiece(square);
         /*
          *       |  |  |  |
          *       |  |K |  |
          *       |  |  |  |
          * */
-        ChessPosition cp;
-        for (int x = -1; x <= 1; x++) {
-            for (int y = -1; y <= 1; y++) {
-                if (x == 0 && y == 0) {
-                    continue;
-                }
-                cp = new ChessPosition(myPosition.getRow() + y, myPosition.getColumn() + x);
-                if (!cp.isValid()) {
-                    continue;
-                }
-                ChessPiece p = board.getPiece(cp);
-                if (p == null || p.getTeamColor() != myPiece.getTeamColor()) {
-                    cm.add(new ChessMove(myPosition, cp, null));
-                }
-            }
-        }
-        return cm;
+        long targets = BitboardUtil.kingAttacks(square) & ~board.getOccupancy(myPiece.getTeamColor());
+        addMoves(moves, square, targets);
     }
 
     public static Collection<ChessMove> queenMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> cm = new ArrayList<>();
-        cm.addAll(getValidInLine(board, ChessDirection.UP, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.DOWN, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.LEFT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.RIGHT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.UP_LEFT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.UP_RIGHT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.DOWN_LEFT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.DOWN_RIGHT, myPosition));
-        return cm;
+        MoveList moves = new MoveList();
+        queenMoves(board, BitboardUtil.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void queenMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece myPiece = board.getPiece(square);
+        long targets = BitboardUtil.queenAttacks(square, board.getOccupied())
+                & ~board.getOccupancy(myPiece.getTeamColor());
+        addMoves(moves, square, targets);
     }
 
     public static Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> cm = new ArrayList<>();
-        cm.addAll(getValidInLine(board, ChessDirection.UP, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.DOWN, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.LEFT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.RIGHT, myPosition));
-        return cm;
+        MoveList moves = new MoveList();
+        rookMoves(board, BitboardUtil.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void rookMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece myPiece = board.getPiece(square);
+        long targets = BitboardUtil.rookAttacks(square, board.getOccupied())
+                & ~board.getOccupancy(myPiece.getTeamColor());
+        addMoves(moves, square, targets);
     }
 
     public static Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> cm = new ArrayList<>();
-        ChessPiece myPiece = board.getPiece(myPosition);
+        MoveList moves = new MoveList();
+        knightMoves(board, BitboardUtil.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void knightMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece myPiece = board.getPiece(square);
         /*
          *     |  |X |  |X |  |
          *     |X |  |  |  |X |
@@ -68,40 +185,32 @@ public class LegalMoveUtil {
          *     |X |  |  |  |X |
          *     |  |X |  |X |  |
          * */
-
-        for (int x = -2; x <= 2; x++) {
-            for (int y = -1; y <= 1; y += 2) {
-                if (x == 0) {
-                    continue;
-                }
-                int newX = myPosition.getColumn() + x;
-                int newY = myPosition.getRow() + (y * (Math.abs(x) > 1 ? 1 : 2));
-                ChessPosition cp = new ChessPosition(newY, newX);
-                if (!cp.isValid()) {
-                    continue;
-                }
-                ChessPiece p = board.getPiece(cp);
-                if (p == null || p.getTeamColor() != myPiece.getTeamColor()) {
-                    cm.add(new ChessMove(myPosition, cp, null));
-                }
-            }
-        }
-
-        return cm;
+        long targets = BitboardUtil.knightAttacks(square)
+                & ~board.getOccupancy(myPiece.getTeamColor());
+        addMoves(moves, square, targets);
     }
 
     public static Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> cm = new ArrayList<>();
-        cm.addAll(getValidInLine(board, ChessDirection.UP_LEFT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.UP_RIGHT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.DOWN_LEFT, myPosition));
-        cm.addAll(getValidInLine(board, ChessDirection.DOWN_RIGHT, myPosition));
-        return cm;
+        MoveList moves = new MoveList();
+        bishopMoves(board, BitboardUtil.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void bishopMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece myPiece = board.getPiece(square);
+        long targets = BitboardUtil.bishopAttacks(square, board.getOccupied())
+                & ~board.getOccupancy(myPiece.getTeamColor());
+        addMoves(moves, square, targets);
     }
 
     public static Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPosition) {
-        ArrayList<ChessMove> cm = new ArrayList<>();
-        ChessPiece myPiece = board.getPiece(myPosition);
+        MoveList moves = new MoveList();
+        pawnMoves(board, BitboardUtil.square(myPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    public static void pawnMoves(ChessBoard board, int from, MoveList moves) {
+        ChessPiece myPiece = board.getPiece(from);
         /*
          *     |  |X |  |
          *     |O |X |O |
@@ -109,92 +218,53 @@ public class LegalMoveUtil {
          *     |  |  |  |
          *
          * */
+        ChessGame.TeamColor color = myPiece.getTeamColor();
+        int direction = color == ChessGame.TeamColor.WHITE ? 8 : -8;
+        long empty = ~board.getOccupied();
 
-        int direction = myPiece.getTeamColor() == ChessGame.TeamColor.WHITE ? 1 : -1;
-
-        ChessPosition straight = new ChessPosition(myPosition.getRow() + direction, myPosition.getColumn());
-        ChessPosition doubleStraight = new ChessPosition(myPosition.getRow() + (direction * 2), myPosition.getColumn());
-        ChessPosition left = new ChessPosition(myPosition.getRow() + direction, myPosition.getColumn() - 1);
-        ChessPosition right = new ChessPosition(myPosition.getRow() + direction, myPosition.getColumn() + 1);
-
-        if (straight.isValid()) {
-            ChessPiece p = board.getPiece(straight);
-            if (p == null) {
-                if (willPawnPromote(straight, myPiece.getTeamColor())) {
-                    cm.addAll(pawnPromotions(myPosition, straight));
-                } else {
-                    cm.add(new ChessMove(myPosition, straight, null));
-                    if (doubleStraight.isValid() && pawnCanLongJump(board, myPosition) && board.getPiece(doubleStraight) == null) {
-                        cm.add(new ChessMove(myPosition, doubleStraight, null));
-                    }
-                }
+        int straight = from + direction;
+        if (straight >= 0 && straight < 64 && (empty & BitboardUtil.bit(straight)) != 0) {
+            addPawnMove(moves, from, straight, color);
+            int doubleStraight = straight + direction;
+            if (pawnCanLongJump(myPiece, from) && (empty & BitboardUtil.bit(doubleStraight)) != 0) {
+                moves.add(from, doubleStraight, 0);
             }
         }
 
-        if (left.isValid()) {
-            ChessPiece p = board.getPiece(left);
-            if (p != null && p.getTeamColor() != myPiece.getTeamColor()) {
-                if (willPawnPromote(left, myPiece.getTeamColor())) {
-                    cm.addAll(pawnPromotions(myPosition, left));
-                } else {
-                    cm.add(new ChessMove(myPosition, left, null));
-                }
-            }
+        long captures = BitboardUtil.pawnAttacks(from, color)
+                & board.getOccupancy(BitboardUtil.opponent(color));
+        while (captures != 0) {
+            addPawnMove(moves, from, Long.numberOfTrailingZeros(captures), color);
+            captures &= captures - 1;
         }
+    }
 
-        if (right.isValid()) {
-            ChessPiece p = board.getPiece(right);
-            if (p != null && p.getTeamColor() != myPiece.getTeamColor()) {
-                if (willPawnPromote(right, myPiece.getTeamColor())) {
-                    cm.addAll(pawnPromotions(myPosition, right));
-                } else {
-                    cm.add(new ChessMove(myPosition, right, null));
-                }
+    static void addPawnMove(MoveList moves, int from, int to, ChessGame.TeamColor color) {
+        if (willPawnPromote(to, color)) {
+            for (int promotion : PROMOTIONS) {
+                moves.add(from, to, promotion);
             }
+        } else {
+            moves.add(from, to, 0);
         }
+    }
 
-        return cm;
+    static void addMoves(MoveList moves, int from, long targets) {
+        while (targets != 0) {
+            moves.add(from, Long.numberOfTrailingZeros(targets), 0);
+            targets &= targets - 1;
+        }
     }
 
-    private static boolean willPawnPromote(ChessPosition cp, ChessGame.TeamColor color) {
-        return color == ChessGame.TeamColor.WHITE ? cp.getRow() == 8 : cp.getRow() == 1;
+    private static boolean willPawnPromote(int square, ChessGame.TeamColor color) {
+        return BitboardUtil.rowOf(square) == (color == ChessGame.TeamColor.WHITE ? 8 : 1);
     }
 
-    private static boolean pawnCanLongJump(ChessBoard board, ChessPosition myPosition) {
-        ChessPiece cp = board.getPiece(myPosition);
+    private static boolean pawnCanLongJump(ChessPiece cp, int square) {
         if (cp.getPieceType() != ChessPiece.PieceType.PAWN) {
             return false;
         } else {
-            return cp.getTeamColor() == ChessGame.TeamColor.WHITE ? myPosition.getRow() == 2 : myPosition.getRow() == 7;
-        }
-    }
-
-    private static Collection<ChessMove> pawnPromotions(ChessPosition start, ChessPosition end) {
-        return List.of(new ChessMove(start, end, ChessPiece.PieceType.BISHOP),
-                new ChessMove(start, end, ChessPiece.PieceType.KNIGHT),
-                new ChessMove(start, end, ChessPiece.PieceType.ROOK),
-                new ChessMove(start, end, ChessPiece.PieceType.QUEEN));
-    }
-
-    private static Collection<ChessMove> getValidInLine(ChessBoard board, ChessDirection dir, ChessPosition pos) {
-        ArrayList<ChessMove> cm = new ArrayList<>();
-        ChessPiece myPiece = board.getPiece(pos);
-        ChessPosition cp = pos;
-        for (int i = 0; i < 8; i++) {
-            cp = new ChessPosition(cp.getRow() + dir.getY(), cp.getColumn() + dir.getX());
-            if (!cp.isValid()) {
-                return cm;
-            }
-            ChessPiece p = board.getPiece(cp);
-            if (p == null) {
-                cm.add(new ChessMove(pos, cp, null));
-            } else if (p.getTeamColor() != myPiece.getTeamColor()) {
-                cm.add(new ChessMove(pos, cp, null));
-                return cm;
-            } else {
-                return cm;
-            }
+            return BitboardUtil.rowOf(square) == (cp.getTeamColor() == ChessGame.TeamColor.WHITE ? 2 : 7);
         }
-        return cm;
     }
 }
@@ -0,0 +1,137 @@
+package chess;
+
+/**
+ * Precomputed sliding piece attacks using magic multiplication.
+ * <p>
+ * For each square the occupancy of the squares a rook/bishop could be blocked on is multiplied
+ * by a per-square magic constant, and the top bits of the product index a table holding the
+ * attack mask for that occupancy. The magics below were found offline with a seeded random
+ * search, so only the attack tables (about 850KB) are filled in when the class loads.
+ */
+class MagicBitboards {
+
+    private static final long[] ROOK_MAGICS = {
+            0x0080008020400010L, 0x8040002000100048L, 0x0880082004801000L, 0x0880080004811000L,
+            0x0200209004484200L, 0x1480040080090600L, 0x45000A0001940100L, 0x0100003286034100L,
+            0x0821802080014000L, 0x8080400050002000L, 0x0201001020010040L, 0x0143002100500218L,
+            0x4045000488001102L, 0x0022001009020004L, 0x2203000A00070004L, 0x0101000081000042L,
+            0x0000808000400030L, 0x0100810020400100L, 0x0000828020001000L, 0x0002020010400820L,
+            0x0420050030280100L, 0x1221818002000400L, 0x00020400A8011022L, 0x3841020004208041L,
+            0x0040802280004005L, 0x0410400080201084L, 0x8840410100102000L, 0x408100210010000AL,
+            0x0080050100080010L, 0x4804008080040200L, 0x019A00E200080104L, 0x0014205200041081L,
+            0x40028040058001A5L, 0x1140100020A00800L, 0x0001802006801006L, 0x8480100082800801L,
+            0x4010041101000800L, 0x0000020080800400L, 0x0200489004000122L, 0x0004040042003081L,
+            0x0020204002818009L, 0x0150002010404000L, 0x0083014020050010L, 0x0250040008004040L,
+            0x0001000408010010L, 0x0802008004008002L, 0x88101008010400C2L, 0x1100005081020004L,
+            0x0022210C80004900L, 0xC001004A04228200L, 0x00A0200040110100L, 0xA000082100100100L,
+            0x6408008004000880L, 0x2100020080040080L, 0x0A08920841101400L, 0x0000011C0040A200L,
+            0x010A008020401102L, 0x0001002010804001L, 0x02804119A0010013L, 0x0230201000080501L,
+            0x8042011028A02402L, 0xC80100040092080DL, 0x0000412810088604L, 0x2100092091040042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x0E04082840408200L, 0x0104080800508012L, 0x2808024403234080L, 0x0008208030008004L,
+            0x2002021054400290L, 0x0C12221041802000L, 0x5020880108200010L, 0x1010210410040240L,
+            0x0421904408480045L, 0x4850480284284200L, 0x950122020042040CL, 0x80B0211041080000L,
+            0x0000045040008884L, 0x9014010402C00800L, 0x0012008410190484L, 0x8401030090902800L,
+            0x1E8B00100210040CL, 0x1208A02028012050L, 0xC910001800801170L, 0xC008042104130008L,
+            0x1202004422010503L, 0xC001004210108408L, 0x0100801202412090L, 0x0049000029080200L,
+            0x4010100240040140L, 0x001D500004101209L, 0x0000821010480200L, 0x2012008018008440L,
+            0x0010028044008410L, 0x0341110042004109L, 0x800C006061081210L, 0xA104044100864409L,
+            0x8102082008042004L, 0x0425100901302100L, 0x0180840401404040L, 0x100A020080080080L,
+            0x000C040400013100L, 0x2210021080063000L, 0x829011004C010402L, 0x0341084080120210L,
+            0x8008010820008850L, 0x0C06420820A00490L, 0x2C09840241085804L, 0x10220C2214020801L,
+            0x40012000A4022480L, 0x28A8200800301280L, 0x0002324222100400L, 0x0030008A00588081L,
+            0x429400C410085080L, 0x8000220202204000L, 0x0010802C02080040L, 0x0000000042022100L,
+            0x0000004008220010L, 0x1008206012008800L, 0x8009208414004000L, 0x101002020C082000L,
+            0x100180805320201EL, 0x800020404A109006L, 0x0401090021080889L, 0x2008204861420884L,
+            0x20800C02A0202480L, 0x0458009020210104L, 0x8020208801282082L, 0x0110245004005011L
+    };
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            fillTable(square, ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_ATTACKS);
+            fillTable(square, BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+    }
+
+    MagicBitboards() {
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_ATTACKS[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square])
+                >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_ATTACKS[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square])
+                >>> BISHOP_SHIFTS[square])];
+    }
+
+    private static void fillTable(int square, int[][] directions, long[] magics,
+                                  long[] masks, int[] shifts, long[][] attacks) {
+        long mask = 0L;
+        for (int[] dir : directions) {
+            mask |= rayAttacks(square, 0L, dir[0], dir[1], true);
+        }
+        int bits = Long.bitCount(mask);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        attacks[square] = new long[1 << bits];
+
+        // Walk every subset of the mask (carry-rippler) and store the real attacks for it
+        long subset = 0L;
+        do {
+            long attack = 0L;
+            for (int[] dir : directions) {
+                attack |= rayAttacks(square, subset, dir[0], dir[1], false);
+            }
+            attacks[square][(int) ((subset * magics[square]) >>> shifts[square])] = attack;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    /**
+     * Walks a single ray away from the square, stopping on (and including) the first occupied square.
+     * When building a blocker mask the last square of the ray is left off, since a piece there
+     * can never change what the slider attacks.
+     * <p>
+     * Does its own square arithmetic rather than going through {@link BitboardUtil}, whose static
+     * initializer reads these tables: calling back into it here would make the two classes depend on
+     * each other's initialization.
+     */
+    private static long rayAttacks(int square, long occupied, int rowStep, int colStep, boolean blockerMask) {
+        long attacks = 0L;
+        int row = (square >>> 3) + rowStep;
+        int col = (square & 7) + colStep;
+        while (onBoard(row, col)) {
+            if (blockerMask && !onBoard(row + rowStep, col + colStep)) {
+                break;
+            }
+            long b = 1L << (row * 8 + col);
+            attacks |= b;
+            if ((occupied & b) != 0) {
+                break;
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return attacks;
+    }
+
+    // Rows and columns counted from 0 here
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+/**
+ * Generates legal moves into move lists it owns, one per ply, so searches and move validation can
+ * run without allocating. Every list is created with room for more moves than any legal position
+ * has, so none of them ever grows.
+ * <p>
+ * The list returned for a ply is overwritten by the next call for the same ply. A generator is not
+ * thread safe, each thread should use its own.
+ */
+public class MoveGenerator {
+
+    // The most legal moves known in any position is 218
+    public static final int MAX_MOVES = 256;
+    public static final int DEFAULT_MAX_PLY = 64;
+
+    private final ChessGame.MoveEngine engine;
+    private final MoveList[] plies;
+    // Separate from the per-ply lists so validating a move does not clobber a caller's generated moves
+    private final MoveList validation = new MoveList(MAX_MOVES);
+
+    public MoveGenerator() {
+        this(ChessGame.MoveEngine.PIN_AWARE, DEFAULT_MAX_PLY);
+    }
+
+    /**
+     * @param maxPly number of per-ply lists, plies 0 to maxPly - 1 can be generated into
+     */
+    public MoveGenerator(ChessGame.MoveEngine engine, int maxPly) {
+        if (maxPly < 1) {
+            throw new IllegalArgumentException("Move generator needs at least one ply");
+        }
+        this.engine = engine;
+        plies = new MoveList[maxPly];
+        for (int i = 0; i < maxPly; i++) {
+            plies[i] = new MoveList(MAX_MOVES);
+        }
+    }
+
+    public ChessGame.MoveEngine getEngine() {
+        return engine;
+    }
+
+    public int getMaxPly() {
+        return plies.length;
+    }
+
+    /**
+     * @return every legal move for the given team, in the list for this ply
+     */
+    public MoveList generate(ChessBoard board, ChessGame.TeamColor turn, int ply) {
+        MoveList moves = plies[ply];
+        moves.clear();
+        engine.allLegalMoves(board, turn, moves);
+        return moves;
+    }
+
+    /**
+     * @return the legal moves of the piece on the given square, in the list for this ply. The list
+     * is empty if the square is empty.
+     */
+    public MoveList generate(ChessBoard board, int square, int ply) {
+        MoveList moves = plies[ply];
+        moves.clear();
+        engine.legalMoves(board, square, moves);
+        return moves;
+    }
+
+    /**
+     * @param move move packed as in {@link MoveList}
+     * @return whether the move is legal for the given team to play on the board
+     */
+    public boolean isLegal(ChessBoard board, ChessGame.TeamColor turn, int move) {
+        ChessPiece piece = board.getPiece(MoveList.from(move));
+        if (piece == null || piece.getTeamColor() != turn) {
+            return false;
+        }
+        validation.clear();
+        engine.legalMoves(board, MoveList.from(move), validation);
+        return validation.contains(move);
+    }
+
+    public boolean isLegal(ChessBoard board, ChessGame.TeamColor turn, ChessMove move) {
+        return isLegal(board, turn, MoveList.encode(move));
+    }
+}
@@ -0,0 +1,151 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A growable list of moves packed into ints, so generating moves does not allocate an object per move.
+ * <p>
+ * Layout, low bit first: start square (6 bits), end square (6 bits) and promotion type (3 bits,
+ * ordinal + 1 or 0 for none). This is the same as the low 16 bits of an {@link UndoRecord}.
+ * Squares are numbered as in {@link BitboardUtil#square(int, int)}.
+ */
+public class MoveList {
+
+    public static final int NO_MOVE = 0;
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * @param promotion promotion code, the type's ordinal + 1 or 0 for none
+     */
+    public static int encode(int from, int to, int promotion) {
+        return from | (to << UndoRecord.TO_SHIFT) | (promotion << UndoRecord.PROMOTION_SHIFT);
+    }
+
+    public static int encode(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return encode(BitboardUtil.square(move.getStartPosition()), BitboardUtil.square(move.getEndPosition()),
+                promotion == null ? 0 : promotion.ordinal() + 1);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> UndoRecord.TO_SHIFT) & 0x3F;
+    }
+
+    /**
+     * @return the promotion code, the type's ordinal + 1 or 0 for none
+     */
+    public static int promotionCode(int move) {
+        return (move >>> UndoRecord.PROMOTION_SHIFT) & 0x7;
+    }
+
+    /**
+     * @return the promotion type, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = promotionCode(move);
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    /**
+     * @return the shared {@link ChessMove} instance for a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public void add(int from, int to, int promotion) {
+        add(encode(from, to, promotion));
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from the given index onwards
+     */
+    public void truncate(int newSize) {
+        if (newSize < size) {
+            size = Math.max(newSize, 0);
+        }
+    }
+
+    /**
+     * @return the moves as {@link ChessMove} objects, for handing out of the chess core
+     */
+    public ArrayList<ChessMove> toChessMoves() {
+        ArrayList<ChessMove> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(toChessMove(moves[i]));
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(toChessMove(moves[i]));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,180 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs {@link Perft} on a {@link ForkJoinPool}, one task per root move. With depth two splitting on,
+ * each root task forks again per reply so a few expensive root moves cannot leave workers idle.
+ * <p>
+ * Usage: {@code java chess.ParallelPerft "<fen>|startpos" <depth> [maxThreads] [split2] [MAKE_UNMAKE|PIN_AWARE]}
+ * <p>
+ * The main method runs the same count at 1, 2, 4 ... maxThreads threads and prints the speedup and
+ * scaling efficiency (speedup / threads) of each run.
+ */
+public class ParallelPerft {
+
+    // Below this many plies a task just counts on its own thread
+    private static final int MIN_SPLIT_DEPTH = 3;
+
+    private final ChessGame.MoveEngine engine;
+    private final int parallelism;
+    private final boolean splitDepthTwo;
+
+    public ParallelPerft(int parallelism) {
+        this(ChessGame.MoveEngine.PIN_AWARE, parallelism, false);
+    }
+
+    /**
+     * @param parallelism   number of worker threads
+     * @param splitDepthTwo whether root tasks should fork a task for each of their own moves as well
+     */
+    public ParallelPerft(ChessGame.MoveEngine engine, int parallelism, boolean splitDepthTwo) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.engine = engine;
+        this.parallelism = parallelism;
+        this.splitDepthTwo = splitDepthTwo;
+    }
+
+    public long perft(ChessGame game, int depth) {
+        return perft(game.getBoard(), game.getTeamTurn(), depth);
+    }
+
+    /**
+     * @return the same count as {@link Perft#perft(ChessBoard, ChessGame.TeamColor, int)}. The board
+     * passed in is only read, each task works on its own copy.
+     */
+    public long perft(ChessBoard board, ChessGame.TeamColor turn, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (long count : divide(board, turn, depth).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the perft count below each legal root move, in generation order
+     */
+    public Map<ChessMove, Long> divide(ChessBoard board, ChessGame.TeamColor turn, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+        MoveList moves = new MoveList();
+        engine.allLegalMoves(board, turn, moves);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<PerftTask> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                PerftTask task = new PerftTask(board, moves.get(i), BitboardUtil.opponent(turn),
+                        depth - 1, splitDepthTwo);
+                tasks.add(task);
+                pool.execute(task);
+            }
+            for (int i = 0; i < moves.size(); i++) {
+                counts.put(MoveList.toChessMove(moves.get(i)), tasks.get(i).join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the tree below one move, played on a private copy of the board. Tasks only live inside
+     * the pool and are never serialized, though ForkJoinTask is Serializable.
+     */
+    @SuppressWarnings("serial")
+    private class PerftTask extends RecursiveTask<Long> {
+
+        private final ChessBoard board;
+        private final ChessGame.TeamColor turn;
+        private final int depth;
+        private final boolean split;
+
+        PerftTask(ChessBoard parent, int move, ChessGame.TeamColor turn, int depth, boolean split) {
+            this.board = parent.copy();
+            this.board.makeMove(move);
+            this.turn = turn;
+            this.depth = depth;
+            this.split = split;
+        }
+
+        @Override
+        protected Long compute() {
+            if (!split || depth < MIN_SPLIT_DEPTH) {
+                return new Perft(engine).perft(board, turn, depth);
+            }
+            MoveList moves = new MoveList();
+            engine.allLegalMoves(board, turn, moves);
+            List<PerftTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                PerftTask child = new PerftTask(board, moves.get(i), BitboardUtil.opponent(turn), depth - 1, false);
+                children.add(child);
+                child.fork();
+            }
+            long nodes = 0;
+            for (PerftTask child : children) {
+                nodes += child.join();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java chess.ParallelPerft \"<fen>|startpos\" <depth> [maxThreads] [split2]"
+                    + " [MAKE_UNMAKE|PIN_AWARE]");
+            System.exit(1);
+        }
+        ChessGame game = ChessGame.fromFen(args[0].equals("startpos") ? Perft.START_FEN : args[0]);
+        int depth = Integer.parseInt(args[1]);
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        boolean split = false;
+        ChessGame.MoveEngine engine = ChessGame.MoveEngine.PIN_AWARE;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("split2")) {
+                split = true;
+            } else {
+                engine = ChessGame.MoveEngine.valueOf(args[i].toUpperCase(Locale.ROOT));
+            }
+        }
+
+        // Untimed run so the single threaded baseline is not also paying for JIT compilation
+        new ParallelPerft(engine, maxThreads, split).perft(game, Math.min(depth, 4));
+
+        System.out.printf("%-8s %14s %10s %16s %8s %10s%n", "threads", "nodes", "ms", "nodes/s", "speedup",
+                "efficiency");
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ParallelPerft perft = new ParallelPerft(engine, threads, split);
+            long start = System.nanoTime();
+            long nodes = perft.perft(game, depth);
+            double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+            if (threads == 1) {
+                baseline = seconds;
+            }
+            double speedup = baseline / seconds;
+            System.out.printf("%-8d %14d %10d %,16d %8.2f %9.0f%%%n", threads, nodes, (long) (seconds * 1000),
+                    (long) (nodes / seconds), speedup, 100 * speedup / threads);
+        }
+    }
+
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if (threads == maxThreads) {
+            return maxThreads + 1;
+        }
+        return Math.min(threads * 2, maxThreads);
+    }
+}
@@ -0,0 +1,155 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts the positions reachable in exactly a given number of moves ("perft"), for checking move
+ * generation against known totals and for measuring how fast positions are enumerated.
+ * <p>
+ * Usage: {@code java chess.Perft "<fen>|startpos" <depth> [MAKE_UNMAKE|PIN_AWARE] [attacks]}
+ * <p>
+ * With {@code attacks} the count is repeated with the board's incremental attack maps switched on
+ * (see {@link ChessBoard#setAttackTracking}) and both timings are printed.
+ * <p>
+ * Positions are read with {@link ChessGame#fromFen(String)}. Moves are played and taken back on the
+ * board passed in, so it is unchanged on return.
+ */
+public class Perft {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private final ChessGame.MoveEngine engine;
+    // Keeps one move list per remaining depth, so the recursion does not allocate
+    private MoveGenerator generator;
+
+    public Perft() {
+        this(ChessGame.MoveEngine.PIN_AWARE);
+    }
+
+    public Perft(ChessGame.MoveEngine engine) {
+        this.engine = engine;
+    }
+
+    public long perft(ChessGame game, int depth) {
+        return perft(game.getBoard(), game.getTeamTurn(), depth);
+    }
+
+    /**
+     * @return the number of move sequences of exactly the given length from this position
+     */
+    public long perft(ChessBoard board, ChessGame.TeamColor turn, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        ensureDepth(depth);
+        return count(board, turn, depth);
+    }
+
+    /**
+     * @return the perft count below each legal root move, in generation order
+     */
+    public Map<ChessMove, Long> divide(ChessBoard board, ChessGame.TeamColor turn, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1");
+        }
+        ensureDepth(depth);
+        MoveList moves = new MoveList();
+        engine.allLegalMoves(board, turn, moves);
+        ChessGame.TeamColor next = BitboardUtil.opponent(turn);
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = board.makeMove(moves.get(i));
+            counts.put(MoveList.toChessMove(moves.get(i)), depth == 1 ? 1 : count(board, next, depth - 1));
+            board.unmakeMove(undo);
+        }
+        return counts;
+    }
+
+    private long count(ChessBoard board, ChessGame.TeamColor turn, int depth) {
+        MoveList moves = generator.generate(board, turn, depth);
+        // Every legal move at the last ply is one leaf, no need to play them
+        if (depth == 1) {
+            return moves.size();
+        }
+        ChessGame.TeamColor next = BitboardUtil.opponent(turn);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = board.makeMove(moves.get(i));
+            nodes += count(board, next, depth - 1);
+            board.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    private void ensureDepth(int depth) {
+        if (generator == null || generator.getMaxPly() <= depth) {
+            generator = new MoveGenerator(engine, Math.max(depth + 1, MoveGenerator.DEFAULT_MAX_PLY));
+        }
+    }
+
+    /**
+     * @return the move in coordinate notation, for example e2e4 or a7a8q
+     */
+    public static String moveName(ChessMove move) {
+        String name = squareName(move.getStartPosition()) + squareName(move.getEndPosition());
+        if (move.getPromotionPiece() == null) {
+            return name;
+        }
+        return name + switch (move.getPromotionPiece()) {
+            case KNIGHT -> 'n';
+            default -> Character.toLowerCase(move.getPromotionPiece().name().charAt(0));
+        };
+    }
+
+    private static String squareName(ChessPosition position) {
+        return "" + (char) ('a' + position.getColumn() - 1) + position.getRow();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java chess.Perft \"<fen>|startpos\" <depth> [MAKE_UNMAKE|PIN_AWARE] [attacks]");
+            System.exit(1);
+        }
+        ChessGame game = ChessGame.fromFen(args[0].equals("startpos") ? START_FEN : args[0]);
+        int depth = Integer.parseInt(args[1]);
+        ChessGame.MoveEngine engine = ChessGame.MoveEngine.PIN_AWARE;
+        boolean compareAttacks = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("attacks")) {
+                compareAttacks = true;
+            } else {
+                engine = ChessGame.MoveEngine.valueOf(args[i].toUpperCase(Locale.ROOT));
+            }
+        }
+        Perft perft = new Perft(engine);
+
+        long start = System.nanoTime();
+        Map<ChessMove, Long> divide = perft.divide(game.getBoard(), game.getTeamTurn(), depth);
+        long elapsed = System.nanoTime() - start;
+
+        long nodes = 0;
+        for (Map.Entry<ChessMove, Long> entry : divide.entrySet()) {
+            System.out.println(moveName(entry.getKey()) + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.println();
+        System.out.println("Moves: " + divide.size());
+        System.out.println("Nodes: " + nodes);
+        printTime("Time", nodes, elapsed);
+
+        if (compareAttacks) {
+            ChessBoard board = game.getBoard().copy();
+            board.setAttackTracking(true);
+            start = System.nanoTime();
+            long trackedNodes = perft.perft(board, game.getTeamTurn(), depth);
+            printTime("With attack maps", trackedNodes, System.nanoTime() - start);
+        }
+    }
+
+    private static void printTime(String label, long nodes, long elapsed) {
+        System.out.printf("%s: %d ms (%,d nodes/s)%n", label, elapsed / 1_000_000,
+                (long) (nodes / Math.max(elapsed / 1e9, 1e-9)));
+    }
+}
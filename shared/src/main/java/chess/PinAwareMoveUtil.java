@@ -0,0 +1,257 @@
+package chess;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Generates only legal moves by working out, once per position, which enemy pieces give check
+ * and which friendly pieces are pinned to their king.
+ * <ul>
+ *     <li>In double check only the king may move.</li>
+ *     <li>In single check every other piece must capture the checker or land between it and the king.</li>
+ *     <li>A pinned piece may only move along the line through its king and the pinning piece.</li>
+ *     <li>The king may not step onto a square the enemy attacks once the king itself stops blocking rays.</li>
+ * </ul>
+ * Unlike {@link LegalMoveUtil#legalMoves} no candidate move is ever played on the board.
+ */
+public class PinAwareMoveUtil {
+
+    PinAwareMoveUtil() {
+    }
+
+    /**
+     * @return the legal moves for the piece at the given position, or an empty collection if there
+     * is no piece there
+     */
+    public static Collection<ChessMove> legalMoves(ChessBoard board, ChessPosition position) {
+        if (board.getPiece(position) == null) {
+            return List.of();
+        }
+        MoveList moves = new MoveList();
+        legalMoves(board, BitboardUtil.square(position), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends the legal moves for the piece on the given square to a move list. Nothing is added if
+     * the square is empty.
+     */
+    public static void legalMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return;
+        }
+        ChessGame.TeamColor color = piece.getTeamColor();
+        int king = kingSquare(board, color);
+        long checkers = checkers(board, color, king);
+        addLegalMoves(board, square, piece, king, checkers,
+                checkMask(king, checkers), pinned(board, color, king), moves);
+    }
+
+    /**
+     * @return every legal move the given team could make
+     */
+    public static Collection<ChessMove> allLegalMoves(ChessBoard board, ChessGame.TeamColor color) {
+        MoveList moves = new MoveList();
+        allLegalMoves(board, color, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Appends every legal move the given team could make to a move list
+     */
+    public static void allLegalMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        int king = kingSquare(board, color);
+        long checkers = checkers(board, color, king);
+        long checkMask = checkMask(king, checkers);
+        long pinned = pinned(board, color, king);
+        long pieces = board.getOccupancy(color);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            addLegalMoves(board, square, board.getPiece(square),
+                    king, checkers, checkMask, pinned, moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    /**
+     * Stops at the first piece found with somewhere legal to go, so it is much cheaper than generating
+     * every move when the side to move is not mated or stalemated
+     *
+     * @return True if the given team has at least one legal move
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color) {
+        long own = board.getOccupancy(color);
+        if (own == 0) {
+            return false;
+        }
+        int king = kingSquare(board, color);
+        long checkers = checkers(board, color, king);
+        // In double check only the king can move
+        if (Long.bitCount(checkers) < 2) {
+            long checkMask = checkMask(king, checkers);
+            long pinned = pinned(board, color, king);
+            long pieces = own & ~BitboardUtil.bit(king);
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                if (legalTargets(board, square, board.getPiece(square), king, checkers, checkMask, pinned) != 0) {
+                    return true;
+                }
+                pieces &= pieces - 1;
+            }
+        }
+        return kingTargets(board, color, king) != 0;
+    }
+
+    private static void addLegalMoves(ChessBoard board, int square, ChessPiece piece, int king, long checkers,
+                                      long checkMask, long pinned, MoveList moves) {
+        long targets = legalTargets(board, square, piece, king, checkers, checkMask, pinned);
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            while (targets != 0) {
+                LegalMoveUtil.addPawnMove(moves, square, Long.numberOfTrailingZeros(targets), piece.getTeamColor());
+                targets &= targets - 1;
+            }
+        } else {
+            LegalMoveUtil.addMoves(moves, square, targets);
+        }
+    }
+
+    /**
+     * @return squares the piece on the given square can legally move to
+     */
+    private static long legalTargets(ChessBoard board, int square, ChessPiece piece, int king, long checkers,
+                                     long checkMask, long pinned) {
+        if (square == king) {
+            return kingTargets(board, piece.getTeamColor(), king);
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return 0L;
+        }
+        long targets = pseudoLegalTargets(board, square, piece) & checkMask;
+        if ((pinned & BitboardUtil.bit(square)) != 0) {
+            targets &= BitboardUtil.line(king, square);
+        }
+        return targets;
+    }
+
+    private static long kingTargets(ChessBoard board, ChessGame.TeamColor color, int king) {
+        return BitboardUtil.kingAttacks(king)
+                & ~board.getOccupancy(color) & ~kingDanger(board, color, king);
+    }
+
+    private static long pseudoLegalTargets(ChessBoard board, int square, ChessPiece piece) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long own = board.getOccupancy(color);
+        long occupied = board.getOccupied();
+        return switch (piece.getPieceType()) {
+            case KING -> BitboardUtil.kingAttacks(square) & ~own;
+            case QUEEN -> BitboardUtil.queenAttacks(square, occupied) & ~own;
+            case ROOK -> BitboardUtil.rookAttacks(square, occupied) & ~own;
+            case BISHOP -> BitboardUtil.bishopAttacks(square, occupied) & ~own;
+            case KNIGHT -> BitboardUtil.knightAttacks(square) & ~own;
+            case PAWN -> {
+                long from = BitboardUtil.bit(square);
+                long empty = ~occupied;
+                long captures = BitboardUtil.pawnAttacks(square, color)
+                        & board.getOccupancy(BitboardUtil.opponent(color));
+                long pushes;
+                if (color == ChessGame.TeamColor.WHITE) {
+                    pushes = (from << 8) & empty;
+                    if (BitboardUtil.rowOf(square) == 2) {
+                        pushes |= (pushes << 8) & empty;
+                    }
+                } else {
+                    pushes = (from >>> 8) & empty;
+                    if (BitboardUtil.rowOf(square) == 7) {
+                        pushes |= (pushes >>> 8) & empty;
+                    }
+                }
+                yield pushes | captures;
+            }
+        };
+    }
+
+    private static int kingSquare(ChessBoard board, ChessGame.TeamColor color) {
+        int king = board.getKingSquare(color);
+        if (king == ChessBoard.NO_SQUARE) {
+            throw new RuntimeException("King not found");
+        }
+        return king;
+    }
+
+    /**
+     * @return mask of the enemy pieces currently attacking the king
+     */
+    static long checkers(ChessBoard board, ChessGame.TeamColor color, int king) {
+        ChessGame.TeamColor enemy = BitboardUtil.opponent(color);
+        long occupied = board.getOccupied();
+        long queens = board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        return (BitboardUtil.pawnAttacks(king, color) & board.getBitboard(enemy, ChessPiece.PieceType.PAWN))
+                | (BitboardUtil.knightAttacks(king) & board.getBitboard(enemy, ChessPiece.PieceType.KNIGHT))
+                | (BitboardUtil.rookAttacks(king, occupied)
+                & (queens | board.getBitboard(enemy, ChessPiece.PieceType.ROOK)))
+                | (BitboardUtil.bishopAttacks(king, occupied)
+                & (queens | board.getBitboard(enemy, ChessPiece.PieceType.BISHOP)));
+    }
+
+    /**
+     * @return squares a non-king move must land on: anywhere when not in check, the checker or the
+     * squares between it and the king in single check, and nowhere in double check
+     */
+    static long checkMask(int king, long checkers) {
+        if (checkers == 0) {
+            return -1L;
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return 0L;
+        }
+        return checkers | BitboardUtil.between(king, Long.numberOfTrailingZeros(checkers));
+    }
+
+    /**
+     * @return mask of friendly pieces that are the only thing between an enemy slider and the king
+     */
+    static long pinned(ChessBoard board, ChessGame.TeamColor color, int king) {
+        ChessGame.TeamColor enemy = BitboardUtil.opponent(color);
+        long queens = board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (BitboardUtil.rookAttacks(king, 0L)
+                & (queens | board.getBitboard(enemy, ChessPiece.PieceType.ROOK)))
+                | (BitboardUtil.bishopAttacks(king, 0L)
+                & (queens | board.getBitboard(enemy, ChessPiece.PieceType.BISHOP)));
+        long occupied = board.getOccupied();
+        long own = board.getOccupancy(color);
+        long pinned = 0L;
+        while (snipers != 0) {
+            long blockers = BitboardUtil.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    /**
+     * @return every square the enemy attacks, with the king taken off the board so it cannot hide
+     * from a slider by stepping away along the slider's own ray
+     */
+    static long kingDanger(ChessBoard board, ChessGame.TeamColor color, int king) {
+        ChessGame.TeamColor enemy = BitboardUtil.opponent(color);
+        long occupied = board.getOccupied() & ~BitboardUtil.bit(king);
+        long danger = BitboardUtil.pawnAttacksOf(board.getBitboard(enemy, ChessPiece.PieceType.PAWN), enemy)
+                | BitboardUtil.knightAttacksOf(board.getBitboard(enemy, ChessPiece.PieceType.KNIGHT))
+                | BitboardUtil.kingAttacksOf(board.getBitboard(enemy, ChessPiece.PieceType.KING));
+        long queens = board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        long straight = queens | board.getBitboard(enemy, ChessPiece.PieceType.ROOK);
+        while (straight != 0) {
+            danger |= BitboardUtil.rookAttacks(Long.numberOfTrailingZeros(straight), occupied);
+            straight &= straight - 1;
+        }
+        long diagonal = queens | board.getBitboard(enemy, ChessPiece.PieceType.BISHOP);
+        while (diagonal != 0) {
+            danger |= BitboardUtil.bishopAttacks(Long.numberOfTrailingZeros(diagonal), occupied);
+            diagonal &= diagonal - 1;
+        }
+        return danger;
+    }
+}
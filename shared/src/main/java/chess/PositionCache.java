@@ -0,0 +1,188 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache from position key (see {@link ChessGame#positionKey()}) to the legal moves and
+ * classification of that position, safe to share between threads and games.
+ * <p>
+ * Lookups are lock free. Inserts take a lock and, once the cache is full, evict with the CLOCK
+ * policy: entries sit in a ring and a hand sweeps it, clearing the referenced bit of entries that were
+ * read since it last passed and evicting the first entry whose bit is already clear.
+ */
+public class PositionCache {
+
+    private final int capacity;
+    private final ConcurrentHashMap<Long, Entry> entries;
+    private final Entry[] ring;
+    private int hand;
+    private int filled;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity most positions to hold at once
+     */
+    public PositionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Position cache capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        entries = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16) * 4 / 3 + 1);
+        ring = new Entry[capacity];
+    }
+
+    /**
+     * Cached legal moves and classification for one position, with the side to move included in the key
+     */
+    public static final class Entry {
+        private final long key;
+        private final int[] moves;
+        private final ChessGame.GameState state;
+        private volatile boolean referenced;
+
+        private Entry(long key, int[] moves, ChessGame.GameState state) {
+            this.key = key;
+            this.moves = moves;
+            this.state = state;
+        }
+
+        public int moveCount() {
+            return moves.length;
+        }
+
+        /**
+         * @return the i'th legal move, packed as in {@link MoveList}
+         */
+        public int move(int i) {
+            return moves[i];
+        }
+
+        public void copyMovesTo(MoveList list) {
+            for (int move : moves) {
+                list.add(move);
+            }
+        }
+
+        /**
+         * @return the check, checkmate, stalemate or normal state of the position for the side to move
+         */
+        public ChessGame.GameState state() {
+            return state;
+        }
+    }
+
+    /**
+     * @return the entry for the position, or null if it is not cached
+     */
+    public Entry get(long key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Caches a position, evicting another one if the cache is full. Does nothing if the position is
+     * already cached.
+     *
+     * @param moves every legal move for the side to move, copied so the list can be reused
+     */
+    public void put(long key, MoveList moves, ChessGame.GameState state) {
+        if (entries.containsKey(key)) {
+            return;
+        }
+        int[] packed = new int[moves.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = moves.get(i);
+        }
+        Entry entry = new Entry(key, packed, state);
+        synchronized (ring) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+            int slot;
+            if (filled < capacity) {
+                slot = filled++;
+            } else {
+                while (ring[hand].referenced) {
+                    ring[hand].referenced = false;
+                    hand = (hand + 1) % capacity;
+                }
+                slot = hand;
+                hand = (hand + 1) % capacity;
+                entries.remove(ring[slot].key);
+                evictions.increment();
+            }
+            ring[slot] = entry;
+            entries.put(key, entry);
+        }
+    }
+
+    public void clear() {
+        synchronized (ring) {
+            entries.clear();
+            Arrays.fill(ring, null);
+            filled = 0;
+            hand = 0;
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return fraction of lookups that found their position, 0 before the first lookup
+     */
+    public double hitRate() {
+        return stats().hitRate();
+    }
+
+    /**
+     * @return a snapshot of the counters, for logging or serving to monitoring
+     */
+    public Stats stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return new Stats(capacity, size(), h, m, evictions.sum(), h + m == 0 ? 0 : (double) h / (h + m));
+    }
+
+    public record Stats(int capacity, int size, long hits, long misses, long evictions, double hitRate) {
+    }
+
+    @Override
+    public String toString() {
+        Stats stats = stats();
+        return String.format("PositionCache{size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%}",
+                stats.size(), stats.capacity(), stats.hits(), stats.misses(), stats.evictions(),
+                stats.hitRate() * 100);
+    }
+}
@@ -0,0 +1,71 @@
+package chess;
+
+/**
+ * Decodes the int returned by {@link ChessBoard#makeMove(ChessMove)}.
+ * <p>
+ * Layout, low bit first: start square (6 bits), end square (6 bits), promotion type (3 bits,
+ * ordinal + 1 or 0 for none), one spare bit, moved piece (4 bits) and captured piece (4 bits).
+ * Pieces are stored as {@link BitboardUtil#pieceIndex} + 1 so 0 can mean "no piece".
+ */
+public class UndoRecord {
+
+    static final int TO_SHIFT = 6;
+    static final int PROMOTION_SHIFT = 12;
+    static final int MOVED_SHIFT = 16;
+    static final int CAPTURED_SHIFT = 20;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    UndoRecord() {
+    }
+
+    static int pack(int move, int moved, int captured) {
+        return move | (moved << MOVED_SHIFT) | (captured << CAPTURED_SHIFT);
+    }
+
+    /**
+     * @return the move that was played, packed as in {@link MoveList}
+     */
+    public static int move(int undo) {
+        return undo & 0xFFFF;
+    }
+
+    public static int from(int undo) {
+        return undo & 0x3F;
+    }
+
+    public static int to(int undo) {
+        return (undo >>> TO_SHIFT) & 0x3F;
+    }
+
+    /**
+     * @return the promotion type, or null if the move was not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int undo) {
+        int code = (undo >>> PROMOTION_SHIFT) & 0x7;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    /**
+     * @return index of the piece that moved, as it stood before any promotion
+     */
+    public static int movedIndex(int undo) {
+        return ((undo >>> MOVED_SHIFT) & 0xF) - 1;
+    }
+
+    /**
+     * @return index of the captured piece, or -1 if nothing was captured
+     */
+    public static int capturedIndex(int undo) {
+        return ((undo >>> CAPTURED_SHIFT) & 0xF) - 1;
+    }
+
+    /**
+     * @return whether the move captured a piece or moved a pawn, so no earlier position can repeat
+     * after it
+     */
+    public static boolean isIrreversible(int undo) {
+        return capturedIndex(undo) >= 0
+                || movedIndex(undo) % TYPES.length == ChessPiece.PieceType.PAWN.ordinal();
+    }
+}
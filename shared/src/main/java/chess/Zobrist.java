@@ -0,0 +1,45 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for every piece on its
+ * square, plus BLACK_TO_MOVE when it is black's turn, so a move only has to XOR out what it
+ * removes and XOR in what it adds.
+ * <p>
+ * The keys come from a fixed-seed SplitMix64 sequence, so the same position hashes to the same
+ * key on every JVM (the client, the server, and anything they persist).
+ */
+public class Zobrist {
+
+    private static final long SEED = 0x240C4E55L;
+
+    private static final long[] PIECE_SQUARE = new long[BitboardUtil.PIECE_KINDS * 64];
+    public static final long BLACK_TO_MOVE;
+
+    static {
+        long state = SEED;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            PIECE_SQUARE[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex see {@link BitboardUtil#pieceIndex}
+     * @param square     square index, see {@link BitboardUtil#square(int, int)}
+     * @return the key for that piece standing on that square
+     */
+    public static long pieceKey(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex * 64 + square];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
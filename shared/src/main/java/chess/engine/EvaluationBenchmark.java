@@ -0,0 +1,78 @@
+package chess.engine;
+
+import chess.BitboardUtil;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.Perft;
+
+/**
+ * Compares {@link IncrementalEvaluator} against {@link PieceSquareEvaluator}, which sums the whole
+ * board on every call, by evaluating every node of a fixed-depth tree walk. The time of the same walk
+ * with an evaluator that does nothing is subtracted, so the rates cover evaluation alone; the
+ * incremental figure includes updating on each make and unmake.
+ * <p>
+ * Usage: {@code java chess.engine.EvaluationBenchmark [depth]}
+ */
+public class EvaluationBenchmark {
+
+    private static final String[] POSITIONS = {
+            Perft.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -"
+    };
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private long evaluations;
+    private long checksum;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        EvaluationBenchmark benchmark = new EvaluationBenchmark();
+        // Untimed round so the figures are not also paying for JIT compilation
+        benchmark.run((board, turn) -> 0, depth);
+        benchmark.run(new PieceSquareEvaluator(), depth);
+        benchmark.run(new IncrementalEvaluator(), depth);
+        for (int round = 0; round < 3; round++) {
+            long walk = benchmark.run((board, turn) -> 0, depth);
+            long full = benchmark.run(new PieceSquareEvaluator(), depth) - walk;
+            long incremental = benchmark.run(new IncrementalEvaluator(), depth) - walk;
+            System.out.printf("round %d: %,d nodes, full %,.0f evals/s, incremental %,.0f evals/s (%.2fx) [%d]%n",
+                    round, benchmark.evaluations, rate(benchmark.evaluations, full),
+                    rate(benchmark.evaluations, incremental), (double) full / incremental, benchmark.checksum);
+        }
+    }
+
+    private static double rate(long evaluations, long nanos) {
+        return evaluations / (Math.max(nanos, 1) / 1e9);
+    }
+
+    // Returns the nanoseconds taken to walk every position, evaluating each node
+    private long run(Evaluator evaluator, int depth) {
+        evaluations = 0;
+        long start = System.nanoTime();
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            evaluator.reset(game.getBoard());
+            walk(evaluator, game.getBoard(), game.getTeamTurn(), depth);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void walk(Evaluator evaluator, ChessBoard board, ChessGame.TeamColor turn, int depth) {
+        checksum += evaluator.evaluate(board, turn);
+        evaluations++;
+        if (depth == 0) {
+            return;
+        }
+        MoveList moves = generator.generate(board, turn, depth);
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = board.makeMove(moves.get(i));
+            evaluator.moveMade(undo);
+            walk(evaluator, board, BitboardUtil.opponent(turn), depth - 1);
+            board.unmakeMove(undo);
+            evaluator.moveUnmade(undo);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Scores positions for {@link Search}. The search calls {@link #reset} with its board before it
+ * starts and reports every move it makes and takes back, so an evaluator can keep its score up to
+ * date instead of reading the whole board; evaluators that do not need this ignore the calls.
+ */
+public interface Evaluator {
+
+    /**
+     * @param board the position to score
+     * @param turn  the side to move
+     * @return the score in centipawns from the side to move's point of view, positive when it is ahead
+     */
+    int evaluate(ChessBoard board, ChessGame.TeamColor turn);
+
+    /**
+     * Called with the board the following moves will be played on
+     */
+    default void reset(ChessBoard board) {
+    }
+
+    /**
+     * @param undo the record returned by {@link ChessBoard#makeMove(int)}
+     */
+    default void moveMade(int undo) {
+    }
+
+    /**
+     * @param undo the record just passed to {@link ChessBoard#unmakeMove(int)}
+     */
+    default void moveUnmade(int undo) {
+    }
+}
@@ -0,0 +1,74 @@
+package chess.engine;
+
+import chess.BitboardUtil;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.UndoRecord;
+
+/**
+ * Tapered material and piece-square evaluation (see {@link PieceSquareTables}) kept up to date
+ * move by move. The middlegame score, endgame score and phase are adjusted from each undo record
+ * in a few table lookups, so evaluating is a blend of three ints rather than a scan of the board.
+ * <p>
+ * Call {@link #reset} for the position to evaluate, then {@link #moveMade} and {@link #moveUnmade}
+ * with the undo record of every move played and taken back on that board. Holds the state of one
+ * board, so each search thread needs its own.
+ */
+public class IncrementalEvaluator implements Evaluator {
+
+    private final int[] totals = new int[3];
+    private int mg;
+    private int eg;
+    private int phase;
+
+    @Override
+    public void reset(ChessBoard board) {
+        PieceSquareTables.sum(board, totals);
+        mg = totals[0];
+        eg = totals[1];
+        phase = totals[2];
+    }
+
+    @Override
+    public void moveMade(int undo) {
+        update(undo, 1);
+    }
+
+    @Override
+    public void moveUnmade(int undo) {
+        update(undo, -1);
+    }
+
+    // Applies the move's change to the totals, or takes it back when sign is -1
+    private void update(int undo, int sign) {
+        int from = UndoRecord.from(undo);
+        int to = UndoRecord.to(undo);
+        int moved = UndoRecord.movedIndex(undo);
+        int placed = moved;
+        ChessPiece.PieceType promotion = UndoRecord.promotion(undo);
+        if (promotion != null) {
+            placed = moved - moved % BitboardUtil.PIECE_TYPES + promotion.ordinal();
+        }
+        int mgDelta = PieceSquareTables.MG[placed][to] - PieceSquareTables.MG[moved][from];
+        int egDelta = PieceSquareTables.EG[placed][to] - PieceSquareTables.EG[moved][from];
+        int phaseDelta = PieceSquareTables.PHASE[placed] - PieceSquareTables.PHASE[moved];
+        int captured = UndoRecord.capturedIndex(undo);
+        if (captured >= 0) {
+            mgDelta -= PieceSquareTables.MG[captured][to];
+            egDelta -= PieceSquareTables.EG[captured][to];
+            phaseDelta -= PieceSquareTables.PHASE[captured];
+        }
+        mg += sign * mgDelta;
+        eg += sign * egDelta;
+        phase += sign * phaseDelta;
+    }
+
+    /**
+     * @return the score of the tracked position; the board is not read
+     */
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor turn) {
+        return PieceSquareTables.taper(mg, eg, phase, turn);
+    }
+}
@@ -0,0 +1,223 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Perft;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs several {@link Search}es on the same position at once, all sharing one
+ * {@link TranspositionTable} ("Lazy SMP"). The threads do not coordinate beyond the table: each one
+ * stores what it finds, so the others cut off or reorder on it and the main thread reaches a given
+ * depth sooner. Odd numbered helpers search every iteration one ply deeper than the main thread so
+ * the threads spread over different parts of the tree instead of repeating each other.
+ * <p>
+ * The threads belong to a fixed pool owned by this object, so a search never takes threads from a
+ * caller such as the server's request handlers. Close the object to stop the pool.
+ * <p>
+ * Usage: {@code java chess.engine.LazySmpSearch "<fen>|startpos" <depth> [maxThreads]}
+ * <p>
+ * The main method searches to the same depth with 1, 2, 4 ... maxThreads threads and prints the
+ * time-to-depth speedup and the nodes each thread searched.
+ */
+public class LazySmpSearch implements AutoCloseable {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService pool;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    public LazySmpSearch(int threads) {
+        this(threads, new TranspositionTable(Search.DEFAULT_TABLE_MB), IncrementalEvaluator::new);
+    }
+
+    /**
+     * @param threads    number of search threads, including the main one
+     * @param table      table shared by all the threads
+     * @param evaluators creates one evaluator per thread
+     */
+    public LazySmpSearch(int threads, TranspositionTable table, Supplier<Evaluator> evaluators) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Lazy SMP needs at least 1 thread");
+        }
+        this.table = table;
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(evaluators.get(), table);
+            searches[i].joinSmp(stopSignal, i % 2);
+        }
+        pool = Executors.newFixedThreadPool(threads, threadFactory());
+    }
+
+    /**
+     * Outcome of a parallel search
+     *
+     * @param best           deepest result any thread completed, the main thread's on a tie
+     * @param nodesPerThread nodes each thread searched, the main thread first
+     * @param depthPerThread deepest completed iteration of each thread
+     * @param millis         wall clock time of the whole search
+     */
+    public record Result(SearchResult best, long[] nodesPerThread, int[] depthPerThread, long millis) {
+
+        public long totalNodes() {
+            return Arrays.stream(nodesPerThread).sum();
+        }
+
+        public long nodesPerSecond() {
+            return millis == 0 ? totalNodes() * 1000 : totalNodes() * 1000 / millis;
+        }
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Searches the game's current position, counting repetitions of its earlier positions and its
+     * halfmove clock as {@link Search#search(ChessGame, SearchLimits)} does
+     */
+    public Result search(ChessGame game, SearchLimits limits) {
+        return search(game.getBoard(), game.getTeamTurn(), game.repetitionKeys(), game.getHalfmoveClock(), limits,
+                null);
+    }
+
+    /**
+     * Searches a bare position, with no earlier positions to repeat and the halfmove clock at 0
+     */
+    public Result search(ChessBoard board, ChessGame.TeamColor turn, SearchLimits limits, Search.Listener listener) {
+        return search(board, turn, new long[0], 0, limits, listener);
+    }
+
+    /**
+     * Searches on every thread until the main thread reaches its limits, then stops the helpers.
+     * If the calling thread is interrupted while waiting, all threads are stopped and the best
+     * result so far is returned with the interrupt status kept.
+     *
+     * @param board    position to search, only read and only from the calling thread
+     * @param gameKeys earlier positions that could be repeated, see
+     *                 {@link Search#search(ChessBoard, ChessGame.TeamColor, long[], int, SearchLimits,
+     *                 Search.Listener)}
+     * @param listener told about each iteration the main thread completes, may be null
+     */
+    public Result search(ChessBoard board, ChessGame.TeamColor turn, long[] gameKeys, int halfmoveClock,
+                         SearchLimits limits, Search.Listener listener) {
+        stopSignal.set(false);
+        table.newSearch();
+        long start = System.nanoTime();
+        List<Future<SearchResult>> futures = new ArrayList<>(searches.length);
+        for (int i = 0; i < searches.length; i++) {
+            Search search = searches[i];
+            Search.Listener reporter = i == 0 ? listener : null;
+            // Each thread plays moves on its own copy
+            ChessBoard copy = board.copy();
+            futures.add(pool.submit(() -> search.search(copy, turn, gameKeys, halfmoveClock, limits, reporter)));
+        }
+
+        boolean interrupted = false;
+        SearchResult[] results = new SearchResult[searches.length];
+        for (int i = 0; i < futures.size(); i++) {
+            while (results[i] == null) {
+                try {
+                    results[i] = futures.get(i).get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    stopSignal.set(true);
+                } catch (ExecutionException e) {
+                    stopSignal.set(true);
+                    throw new IllegalStateException("Search thread failed", e.getCause());
+                }
+            }
+            // Once the main thread is done the helpers have nothing left to contribute
+            stopSignal.set(true);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        SearchResult best = results[0];
+        long[] nodes = new long[searches.length];
+        int[] depths = new int[searches.length];
+        for (int i = 0; i < searches.length; i++) {
+            nodes[i] = searches[i].getNodes();
+            depths[i] = results[i].depth();
+            if (results[i].depth() > best.depth() && results[i].bestMove() != null) {
+                best = results[i];
+            }
+        }
+        return new Result(best, nodes, depths, millis);
+    }
+
+    /**
+     * Stops a running search, from any thread
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    @Override
+    public void close() {
+        stopSignal.set(true);
+        pool.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory() {
+        int poolNumber = POOL_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "lazy-smp-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java chess.engine.LazySmpSearch \"<fen>|startpos\" <depth> [maxThreads]");
+            System.exit(1);
+        }
+        ChessGame game = ChessGame.fromFen(args[0].equals("startpos") ? Perft.START_FEN : args[0]);
+        int depth = Integer.parseInt(args[1]);
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        // Untimed run so the single threaded baseline is not also paying for JIT compilation
+        try (LazySmpSearch warmUp = new LazySmpSearch(maxThreads)) {
+            warmUp.search(game, SearchLimits.depth(Math.min(depth, 5)));
+        }
+
+        System.out.printf("%-8s %6s %14s %10s %14s %8s  %s%n", "threads", "depth", "nodes", "ms", "nodes/s",
+                "speedup", "nodes per thread");
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1
+                : Math.min(threads * 2, maxThreads)) {
+            try (LazySmpSearch search = new LazySmpSearch(threads)) {
+                Result result = search.search(game, SearchLimits.depth(depth));
+                double seconds = Math.max(result.millis() / 1000.0, 1e-3);
+                if (threads == 1) {
+                    baseline = seconds;
+                }
+                System.out.printf("%-8d %6d %14d %10d %,14d %8.2f  %s%n", threads, result.best().depth(),
+                        result.totalNodes(), result.millis(), result.nodesPerSecond(), baseline / seconds,
+                        Arrays.toString(result.nodesPerThread()));
+                System.out.println("         " + result.best());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Scores a position by counting material with one popcount per piece bitboard
+ */
+public class MaterialEvaluator implements Evaluator {
+
+    // Centipawn values indexed by PieceType ordinal: king, queen, bishop, knight, rook, pawn
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor turn) {
+        int score = 0;
+        for (ChessPiece.PieceType type : TYPES) {
+            int count = Long.bitCount(board.getBitboard(ChessGame.TeamColor.WHITE, type))
+                    - Long.bitCount(board.getBitboard(ChessGame.TeamColor.BLACK, type));
+            score += count * PIECE_VALUES[type.ordinal()];
+        }
+        return turn == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * @return the centipawn value of a piece type, 0 for the king
+     */
+    public static int value(ChessPiece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+}
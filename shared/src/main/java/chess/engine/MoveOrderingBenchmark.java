@@ -0,0 +1,49 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Perft;
+
+/**
+ * Searches each position to a fixed depth with move ordering off, so the main search tries moves in
+ * generation order, and on, then prints the nodes and effective branching factor of both. Each
+ * search gets a fresh table so neither run profits from the other.
+ * <p>
+ * Usage: {@code java chess.engine.MoveOrderingBenchmark [extraDepth]}, where extraDepth is added to
+ * every position's depth.
+ */
+public class MoveOrderingBenchmark {
+
+    private static final String[] POSITIONS = {
+            Perft.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -"
+    };
+    // Unordered, the tactical positions take minutes a ply or two deeper than this
+    private static final int[] DEPTHS = {5, 4, 6, 4};
+
+    public static void main(String[] args) {
+        int extraDepth = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        // Untimed round so the figures are not also paying for JIT compilation
+        for (int i = 0; i < POSITIONS.length; i++) {
+            search(POSITIONS[i], DEPTHS[i], true);
+        }
+
+        System.out.printf("%-6s %6s %14s %8s %14s %8s %10s%n", "pos", "depth", "nodes off", "ebf off", "nodes on",
+                "ebf on", "reduction");
+        for (int i = 0; i < POSITIONS.length; i++) {
+            int depth = DEPTHS[i] + extraDepth;
+            SearchResult off = search(POSITIONS[i], depth, false);
+            SearchResult on = search(POSITIONS[i], depth, true);
+            System.out.printf("%-6d %6d %,14d %8.2f %,14d %8.2f %9.1fx%n", i, depth, off.nodes(),
+                    off.branchingFactor(), on.nodes(), on.branchingFactor(), (double) off.nodes() / on.nodes());
+        }
+    }
+
+    private static SearchResult search(String fen, int depth, boolean ordered) {
+        ChessGame game = ChessGame.fromFen(fen);
+        Search search = new Search();
+        search.setMoveOrdering(ordered);
+        return search.search(game, SearchLimits.depth(depth));
+    }
+}
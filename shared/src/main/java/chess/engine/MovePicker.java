@@ -0,0 +1,184 @@
+package chess.engine;
+
+import chess.BitboardUtil;
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.MoveGenerator;
+import chess.MoveList;
+
+/**
+ * Hands out the moves of one node in the order most likely to cause an early cutoff, in stages:
+ * the hash move, then captures and promotions by MVV-LVA (most valuable victim, then least
+ * valuable attacker), then the two killer moves of the ply, then the remaining quiet moves by their
+ * history score. Each stage is only scored when reached and each call picks the best remaining
+ * move of the stage, so a cutoff on the hash move or a capture skips the work for the rest.
+ * <p>
+ * Moves are reordered in place in the {@link MoveList} being picked from: everything before the
+ * cursor has been handed out. One picker is kept per ply so picking does not allocate.
+ */
+class MovePicker {
+
+    private static final int HASH = 0;
+    private static final int CAPTURES_INIT = 1;
+    private static final int CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int QUIETS_INIT = 4;
+    private static final int QUIETS = 5;
+    private static final int UNORDERED = 6;
+    private static final int DONE = 7;
+
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    // Indexed by [pieceIndex][to square], raised when a quiet move causes a cutoff
+    private final int[][] history;
+
+    private ChessBoard board;
+    private MoveList moves;
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private boolean quiets;
+    private int stage;
+    private int cursor;
+    private int capturesEnd;
+
+    MovePicker(int[][] history) {
+        this.history = history;
+    }
+
+    /**
+     * Starts picking from a freshly generated list
+     *
+     * @param hashMove move to try first, or {@link MoveList#NO_MOVE}
+     * @param quiets   whether to hand out quiet moves at all, false in quiescence search
+     * @param ordered  false to hand the moves out in generation order, for measuring the ordering
+     */
+    void init(ChessBoard board, MoveList moves, int hashMove, int killer1, int killer2, boolean quiets,
+              boolean ordered) {
+        this.board = board;
+        this.moves = moves;
+        this.hashMove = hashMove;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        this.quiets = quiets;
+        stage = ordered ? HASH : UNORDERED;
+        cursor = 0;
+    }
+
+    /**
+     * @return the next move to search, or {@link MoveList#NO_MOVE} once every move has been handed out
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH -> {
+                    stage = CAPTURES_INIT;
+                    if (hashMove != MoveList.NO_MOVE && (quiets || isTactical(hashMove)) && take(hashMove)) {
+                        return hashMove;
+                    }
+                }
+                case CAPTURES_INIT -> {
+                    capturesEnd = cursor;
+                    for (int i = cursor; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        if (isTactical(move)) {
+                            swap(i, capturesEnd);
+                            scores[capturesEnd++] = captureScore(move);
+                        }
+                    }
+                    stage = CAPTURES;
+                }
+                case CAPTURES -> {
+                    if (cursor < capturesEnd) {
+                        return pickBest(capturesEnd);
+                    }
+                    stage = quiets ? KILLERS : DONE;
+                }
+                case KILLERS -> {
+                    // Only quiet moves are left, so a killer that is a capture here was already handed out
+                    if (killer1 != MoveList.NO_MOVE && take(killer1)) {
+                        int move = killer1;
+                        killer1 = MoveList.NO_MOVE;
+                        return move;
+                    }
+                    if (killer2 != MoveList.NO_MOVE && take(killer2)) {
+                        int move = killer2;
+                        killer2 = MoveList.NO_MOVE;
+                        return move;
+                    }
+                    stage = QUIETS_INIT;
+                }
+                case QUIETS_INIT -> {
+                    for (int i = cursor; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        int piece = BitboardUtil.pieceIndex(board.getPiece(MoveList.from(move)));
+                        scores[i] = history[piece][MoveList.to(move)];
+                    }
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    if (cursor < moves.size()) {
+                        return pickBest(moves.size());
+                    }
+                    stage = DONE;
+                }
+                case UNORDERED -> {
+                    while (cursor < moves.size()) {
+                        int move = moves.get(cursor++);
+                        if (quiets || isTactical(move)) {
+                            return move;
+                        }
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return MoveList.NO_MOVE;
+                }
+            }
+        }
+    }
+
+    boolean isTactical(int move) {
+        return board.getPiece(MoveList.to(move)) != null || MoveList.promotionCode(move) != 0;
+    }
+
+    private int captureScore(int move) {
+        ChessPiece victim = board.getPiece(MoveList.to(move));
+        int score = victim == null ? 0 : MaterialEvaluator.value(victim.getPieceType()) * 8;
+        if (MoveList.promotionCode(move) != 0) {
+            score += MaterialEvaluator.value(MoveList.promotion(move)) * 8;
+        }
+        return score - MaterialEvaluator.value(board.getPiece(MoveList.from(move)).getPieceType()) / 100;
+    }
+
+    // Moves the given move to the cursor if it has not been handed out yet
+    private boolean take(int move) {
+        for (int i = cursor; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                swap(i, cursor++);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Selects the highest scoring move between the cursor and end
+    private int pickBest(int end) {
+        int best = cursor;
+        for (int i = cursor + 1; i < end; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        swap(best, cursor);
+        return moves.get(cursor++);
+    }
+
+    private void swap(int i, int j) {
+        int move = moves.get(i);
+        moves.set(i, moves.get(j));
+        moves.set(j, move);
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
@@ -0,0 +1,19 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Tapered material and piece-square evaluation (see {@link PieceSquareTables}) summed over the
+ * whole board on every call. {@link IncrementalEvaluator} gives the same scores without the scan.
+ */
+public class PieceSquareEvaluator implements Evaluator {
+
+    private final int[] totals = new int[3];
+
+    @Override
+    public int evaluate(ChessBoard board, ChessGame.TeamColor turn) {
+        PieceSquareTables.sum(board, totals);
+        return PieceSquareTables.taper(totals[0], totals[1], totals[2], turn);
+    }
+}
@@ -0,0 +1,168 @@
+package chess.engine;
+
+import chess.BitboardUtil;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Material and piece-square values for the middlegame and the endgame, with the game phase used
+ * to blend them. Both evaluators that use these tables must agree exactly, so the values and the
+ * blending live here.
+ * <p>
+ * Values are from white's point of view: black pieces hold the negated value of the mirrored
+ * square. The phase counts 1 per knight or bishop, 2 per rook and 4 per queen, so the starting
+ * position is {@link #MAX_PHASE} and bare kings are 0.
+ */
+class PieceSquareTables {
+
+    static final int MAX_PHASE = 24;
+
+    // Indexed by PieceType ordinal: king, queen, bishop, knight, rook, pawn
+    private static final int[] MG_VALUE = {0, 1025, 365, 337, 477, 82};
+    private static final int[] EG_VALUE = {0, 936, 297, 281, 512, 94};
+    private static final int[] PHASE_WEIGHT = {0, 4, 1, 1, 2, 0};
+
+    // Written as seen from white with rank 8 on top, so a white piece on square s reads index s ^ 56
+    private static final int[] KING_MG = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20};
+    private static final int[] KING_EG = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20};
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0};
+    private static final int[] PAWN_MG = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int[] PAWN_EG = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final int[][] MG_TABLES = {KING_MG, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MG};
+    private static final int[][] EG_TABLES = {KING_EG, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_EG};
+
+    // Signed material plus square value, indexed by [pieceIndex][square]
+    static final int[][] MG = new int[BitboardUtil.PIECE_KINDS][64];
+    static final int[][] EG = new int[BitboardUtil.PIECE_KINDS][64];
+    static final int[] PHASE = new int[BitboardUtil.PIECE_KINDS];
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    static {
+        for (ChessPiece.PieceType type : TYPES) {
+            int t = type.ordinal();
+            int white = BitboardUtil.pieceIndex(ChessGame.TeamColor.WHITE, type);
+            int black = BitboardUtil.pieceIndex(ChessGame.TeamColor.BLACK, type);
+            for (int square = 0; square < 64; square++) {
+                MG[white][square] = MG_VALUE[t] + MG_TABLES[t][square ^ 56];
+                EG[white][square] = EG_VALUE[t] + EG_TABLES[t][square ^ 56];
+                MG[black][square] = -(MG_VALUE[t] + MG_TABLES[t][square]);
+                EG[black][square] = -(EG_VALUE[t] + EG_TABLES[t][square]);
+            }
+            PHASE[white] = PHASE_WEIGHT[t];
+            PHASE[black] = PHASE_WEIGHT[t];
+        }
+    }
+
+    PieceSquareTables() {
+    }
+
+    /**
+     * Blends the middlegame and endgame scores by phase. A phase above {@link #MAX_PHASE}, possible
+     * after promotions, counts as a full middlegame.
+     *
+     * @return the score from the side to move's point of view
+     */
+    static int taper(int mg, int eg, int phase, ChessGame.TeamColor turn) {
+        int p = Math.min(phase, MAX_PHASE);
+        int score = (mg * p + eg * (MAX_PHASE - p)) / MAX_PHASE;
+        return turn == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Sums the tables over every piece on the board
+     *
+     * @param totals array of at least 3 to fill in
+     * @return totals, holding the middlegame score, endgame score and phase in that order
+     */
+    static int[] sum(ChessBoard board, int[] totals) {
+        int mg = 0;
+        int eg = 0;
+        int phase = 0;
+        for (ChessGame.TeamColor color : COLORS) {
+            for (ChessPiece.PieceType type : TYPES) {
+                int piece = BitboardUtil.pieceIndex(color, type);
+                for (long bits = board.getBitboard(color, type); bits != 0; bits &= bits - 1) {
+                    int square = Long.numberOfTrailingZeros(bits);
+                    mg += MG[piece][square];
+                    eg += EG[piece][square];
+                    phase += PHASE[piece];
+                }
+            }
+        }
+        totals[0] = mg;
+        totals[1] = eg;
+        totals[2] = phase;
+        return totals;
+    }
+}
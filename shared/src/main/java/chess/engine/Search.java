@@ -0,0 +1,497 @@
+package chess.engine;
+
+import chess.BitboardUtil;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.KingTargetedUtil;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.Perft;
+import chess.UndoRecord;
+import chess.Zobrist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Picks a move by negamax alpha-beta search with iterative deepening. Each iteration searches one
+ * ply deeper than the last and ends in a captures-only quiescence search so leaves are not scored
+ * in the middle of an exchange. Results are kept in a {@link TranspositionTable}, which cuts off
+ * positions already searched deeply enough and supplies the best move found for them last time.
+ * Moves are tried in the order given by {@link MovePicker}: that hash move (or, while the line
+ * still follows it, the previous iteration's principal variation), captures, killer moves, then
+ * quiet moves by history score.
+ * <p>
+ * Positions reached again are scored as draws, whether they repeat an earlier position on the
+ * searched line or, when searching a {@link ChessGame}, one from the game since its last capture or
+ * pawn move. So are positions reached once the game's halfmove clock runs to
+ * {@link ChessGame#FIFTY_MOVE_PLIES}, unless they are checkmate.
+ * <p>
+ * The search stops at the depth, time or node limit in its {@link SearchLimits}, when
+ * {@link #stop()} is called, or when its thread is interrupted, and returns the deepest completed
+ * iteration. Moves are generated into a {@link MoveGenerator}'s per-ply lists and played with make
+ * and unmake on a private copy of the board, so the search itself does not allocate.
+ * <p>
+ * A Search is not thread safe; run one per thread.
+ * <p>
+ * Usage: {@code java chess.engine.Search "<fen>|startpos" [millis]}
+ */
+public class Search {
+
+    public static final int MAX_DEPTH = 64;
+    // Deepest ply including quiescence, after which positions are scored as they stand
+    public static final int MAX_PLY = 128;
+    public static final int INFINITY = 32000;
+    // Score of being mated at the root. Mate n plies from the root scores MATE - n.
+    public static final int MATE = 31000;
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    public static final int DEFAULT_TABLE_MB = 16;
+
+    // Limits are checked every this many nodes plus one
+    private static final int CHECK_INTERVAL = 1023;
+    // History scores are halved once one passes this, so recent cutoffs keep counting
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final MoveGenerator generator = new MoveGenerator(ChessGame.MoveEngine.PIN_AWARE, MAX_PLY);
+    // Triangular principal variation table: row ply holds the best line found from that ply
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    // Principal variation of the last completed iteration, tried first in the next one
+    private final int[] previousPv = new int[MAX_PLY];
+    private int previousPvLength;
+    // Keys of the game's positions since its last irreversible move, then of the positions on the
+    // current line from pathKeys[rootIndex] on, for spotting repetitions
+    private final long[] pathKeys = new long[ChessGame.FIFTY_MOVE_PLIES + MAX_PLY];
+    private int rootIndex;
+    // Two quiet moves per ply that last caused a cutoff there, most recent first
+    private final int[][] killers = new int[MAX_PLY][2];
+    // Indexed by [pieceIndex][to square], how much quiet moves of that piece to that square have cut off
+    private final int[][] history = new int[BitboardUtil.PIECE_KINDS][64];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private boolean moveOrdering = true;
+
+    private ChessBoard board;
+    private long nodes;
+    private long startNanos;
+    private long deadlineNanos;
+    private long maxNodes;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+    // Set by LazySmpSearch, which shares one stop signal between its threads and ages the table itself
+    private AtomicBoolean sharedStop;
+    private int depthOffset;
+
+    /**
+     * Receives the result of each completed iteration, for reporting progress
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onIteration(SearchResult result);
+    }
+
+    public Search() {
+        this(new IncrementalEvaluator());
+    }
+
+    public Search(Evaluator evaluator) {
+        this(evaluator, new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * @param table transposition table to read and write, which may be shared with other searches
+     */
+    public Search(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.table = table;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker(history);
+        }
+    }
+
+    /**
+     * Turns move ordering off or on. Off, the main search tries moves in generation order, which is
+     * only useful for measuring what the ordering saves; quiescence search keeps ordering captures,
+     * as without it the capture sequences alone take minutes in tactical positions.
+     */
+    public void setMoveOrdering(boolean moveOrdering) {
+        this.moveOrdering = moveOrdering;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, null);
+    }
+
+    /**
+     * Searches the game's current position, counting repetitions of its earlier positions and its
+     * halfmove clock towards the fifty-move rule
+     *
+     * @param listener told about each completed iteration, may be null
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits, Listener listener) {
+        return search(game.getBoard(), game.getTeamTurn(), game.repetitionKeys(), game.getHalfmoveClock(), limits,
+                listener);
+    }
+
+    /**
+     * Searches a bare position, with no earlier positions to repeat and the halfmove clock at 0
+     *
+     * @see #search(ChessBoard, ChessGame.TeamColor, long[], int, SearchLimits, Listener)
+     */
+    public SearchResult search(ChessBoard board, ChessGame.TeamColor turn, SearchLimits limits, Listener listener) {
+        return search(board, turn, new long[0], 0, limits, listener);
+    }
+
+    /**
+     * Searches the position and returns the deepest completed iteration. If the limits run out
+     * before the first iteration completes, the first legal move is returned at depth 0.
+     *
+     * @param board         position to search, left unchanged
+     * @param turn          side to move
+     * @param gameKeys      keys of the positions before this one that it or later ones could repeat,
+     *                      oldest first, as given by {@link ChessGame#repetitionKeys()}
+     * @param halfmoveClock plies since the last capture or pawn move
+     * @param limits        when to stop
+     * @param listener      told about each completed iteration, may be null
+     * @return the best move found, with a null move if the side to move has no legal moves
+     */
+    public SearchResult search(ChessBoard board, ChessGame.TeamColor turn, long[] gameKeys, int halfmoveClock,
+                               SearchLimits limits, Listener listener) {
+        // Older positions cannot matter, the fifty-move rule ends the game before they could recur
+        rootIndex = Math.min(gameKeys.length, ChessGame.FIFTY_MOVE_PLIES);
+        System.arraycopy(gameKeys, gameKeys.length - rootIndex, pathKeys, 0, rootIndex);
+        this.board = board.copy();
+        evaluator.reset(this.board);
+        nodes = 0;
+        stopped = false;
+        stopRequested = false;
+        previousPvLength = 0;
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, MoveList.NO_MOVE);
+        }
+        ageHistory();
+        if (sharedStop == null) {
+            table.newSearch();
+        }
+        startNanos = System.nanoTime();
+        deadlineNanos = limits.millis() == 0 ? Long.MAX_VALUE : startNanos + limits.millis() * 1_000_000;
+        maxNodes = limits.nodes() == 0 ? Long.MAX_VALUE : limits.nodes();
+
+        MoveList rootMoves = generator.generate(this.board, turn, 0);
+        if (rootMoves.isEmpty()) {
+            return new SearchResult(null, inCheck(turn) ? -MATE : 0, 0, 0, elapsedMillis(), List.of());
+        }
+        ChessMove fallback = MoveList.toChessMove(rootMoves.get(0));
+        SearchResult result = new SearchResult(fallback, 0, 0, 0, 0, List.of(fallback));
+
+        for (int iteration = 1; iteration <= limits.depth(); iteration++) {
+            int depth = Math.min(iteration + depthOffset, MAX_DEPTH);
+            int score = alphaBeta(turn, depth, -INFINITY, INFINITY, 0, halfmoveClock, true);
+            if (stopped) {
+                break;
+            }
+            previousPvLength = pvLength[0];
+            System.arraycopy(pvTable[0], 0, previousPv, 0, previousPvLength);
+            result = new SearchResult(MoveList.toChessMove(previousPv[0]), score, depth, nodes, elapsedMillis(),
+                    principalVariation());
+            if (listener != null) {
+                listener.onIteration(result);
+            }
+            if (Math.abs(score) >= MATE_BOUND) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asks a running search to stop and return what it has, from any thread
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Makes this search one of several sharing its table, for {@link LazySmpSearch}
+     *
+     * @param stopSignal  stops the search when set, as well as its own limits
+     * @param depthOffset plies added to every iteration's depth
+     */
+    void joinSmp(AtomicBoolean stopSignal, int depthOffset) {
+        this.sharedStop = stopSignal;
+        this.depthOffset = depthOffset;
+    }
+
+    /**
+     * @return nodes searched so far by the current or last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @param clock plies since the last capture or pawn move, counting the game's before the root
+     * @param onPv  whether every move from the root to here follows the previous iteration's
+     *              principal variation
+     */
+    private int alphaBeta(ChessGame.TeamColor turn, int depth, int alpha, int beta, int ply, int clock,
+                          boolean onPv) {
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiescence(turn, alpha, beta, ply);
+        }
+        pvLength[ply] = ply;
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        long key = key(turn);
+        pathKeys[rootIndex + ply] = key;
+        if (ply > 0) {
+            if (repeats(ply, clock)) {
+                return 0;
+            }
+            if (clock >= ChessGame.FIFTY_MOVE_PLIES) {
+                // Checkmate on the last ply still stands over the fifty-move rule
+                return inCheck(turn) && generator.generate(board, turn, ply).isEmpty() ? ply - MATE : 0;
+            }
+        }
+
+        long entry = table.probe(key);
+        // Off the principal variation its move at this ply belongs to another position, so only the
+        // table's move is worth trying first
+        int pvMove = onPv && ply < previousPvLength ? previousPv[ply] : MoveList.NO_MOVE;
+        int hashMove = pvMove;
+        if (entry != TranspositionTable.NO_ENTRY) {
+            if (pvMove == MoveList.NO_MOVE) {
+                hashMove = TranspositionTable.move(entry);
+            }
+            // The root always searches, so it has a full principal variation to report
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        boolean inCheck = inCheck(turn);
+        MoveList moves = generator.generate(board, turn, ply);
+        if (moves.isEmpty()) {
+            return inCheck ? ply - MATE : 0;
+        }
+        MovePicker picker = pickers[ply];
+        picker.init(board, moves, hashMove, killers[ply][0], killers[ply][1], true, moveOrdering);
+
+        ChessGame.TeamColor next = BitboardUtil.opponent(turn);
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = MoveList.NO_MOVE;
+        for (int move = picker.next(); move != MoveList.NO_MOVE; move = picker.next()) {
+            boolean quiet = !picker.isTactical(move);
+            int undo = board.makeMove(move);
+            evaluator.moveMade(undo);
+            int score = -alphaBeta(next, depth - 1, -beta, -alpha, ply + 1,
+                    UndoRecord.isIrreversible(undo) ? 0 : clock + 1, move == pvMove);
+            board.unmakeMove(undo);
+            evaluator.moveUnmade(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (quiet) {
+                            recordCutoff(move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // Mate scores are stored as distance from the stored position rather than from the root
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        return score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        return score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    /**
+     * Searches captures and promotions only until the position is quiet. The side to move may
+     * "stand pat" on the static score instead of capturing, except in check, where every evasion
+     * is searched so checkmates are still found.
+     */
+    private int quiescence(ChessGame.TeamColor turn, int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if ((++nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(board, turn);
+        }
+        boolean inCheck = inCheck(turn);
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = evaluator.evaluate(board, turn);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+        MoveList moves = generator.generate(board, turn, ply);
+        if (moves.isEmpty()) {
+            return inCheck ? ply - MATE : 0;
+        }
+        // Out of check only captures and promotions are searched
+        MovePicker picker = pickers[ply];
+        picker.init(board, moves, MoveList.NO_MOVE, MoveList.NO_MOVE, MoveList.NO_MOVE, inCheck, true);
+
+        ChessGame.TeamColor next = BitboardUtil.opponent(turn);
+        for (int move = picker.next(); move != MoveList.NO_MOVE; move = picker.next()) {
+            int undo = board.makeMove(move);
+            evaluator.moveMade(undo);
+            int score = -quiescence(next, -beta, -alpha, ply + 1);
+            board.unmakeMove(undo);
+            evaluator.moveUnmade(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff: as a killer for its ply, and in the history
+     * table weighted by the square of the remaining depth so cutoffs near the root count most
+     */
+    private void recordCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int piece = BitboardUtil.pieceIndex(board.getPiece(MoveList.from(move)));
+        int[] scores = history[piece];
+        scores[MoveList.to(move)] += depth * depth;
+        if (scores[MoveList.to(move)] > HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (int[] scores : history) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] >>= 1;
+            }
+        }
+    }
+
+    private boolean inCheck(ChessGame.TeamColor turn) {
+        int king = board.getKingSquare(turn);
+        return king != ChessBoard.NO_SQUARE
+                && KingTargetedUtil.squareAttacked(board, king, BitboardUtil.opponent(turn));
+    }
+
+    private long key(ChessGame.TeamColor turn) {
+        long key = board.positionKey();
+        return turn == ChessGame.TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    /**
+     * A position met again, on the same line or earlier in the game, is scored as a draw since
+     * either side could go on repeating it. Only positions with the same side to move since the last
+     * capture or pawn move are compared.
+     */
+    private boolean repeats(int ply, int clock) {
+        int current = rootIndex + ply;
+        int oldest = Math.max(0, current - clock);
+        for (int i = current - 2; i >= oldest; i -= 2) {
+            if (pathKeys[i] == pathKeys[current]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private List<ChessMove> principalVariation() {
+        List<ChessMove> pv = new ArrayList<>(previousPvLength);
+        for (int i = 0; i < previousPvLength; i++) {
+            pv.add(MoveList.toChessMove(previousPv[i]));
+        }
+        return pv;
+    }
+
+    private void checkLimits() {
+        if (stopRequested || (sharedStop != null && sharedStop.get()) || nodes >= maxNodes
+                || System.nanoTime() >= deadlineNanos || Thread.currentThread().isInterrupted()) {
+            stopped = true;
+        }
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java chess.engine.Search \"<fen>|startpos\" [millis]");
+            System.exit(1);
+        }
+        ChessGame game = ChessGame.fromFen(args[0].equals("startpos") ? Perft.START_FEN : args[0]);
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        Search search = new Search();
+        SearchResult result = search.search(game, SearchLimits.millis(millis), System.out::println);
+        System.out.println("bestmove " + (result.bestMove() == null ? "(none)" : Perft.moveName(result.bestMove())));
+        System.out.println(search.getTable());
+    }
+}
@@ -0,0 +1,33 @@
+package chess.engine;
+
+/**
+ * When a {@link Search} has to stop. The search ends at whichever limit is reached first and
+ * returns the result of its deepest completed iteration.
+ *
+ * @param depth  deepest iteration to run, at most {@link Search#MAX_DEPTH}
+ * @param millis wall clock budget in milliseconds, 0 for none
+ * @param nodes  node budget, 0 for none
+ */
+public record SearchLimits(int depth, long millis, long nodes) {
+
+    public SearchLimits {
+        if (depth < 1 || depth > Search.MAX_DEPTH) {
+            throw new IllegalArgumentException("Search depth must be between 1 and " + Search.MAX_DEPTH);
+        }
+        if (millis < 0 || nodes < 0) {
+            throw new IllegalArgumentException("Search time and node budgets must not be negative");
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(Search.MAX_DEPTH, millis, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(Search.MAX_DEPTH, 0, nodes);
+    }
+}
@@ -0,0 +1,54 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.Perft;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of one completed {@link Search} iteration
+ *
+ * @param bestMove the move to play, null if the side to move has none
+ * @param score    centipawns from the side to move's point of view, or a mate score (see {@link #isMate()})
+ * @param depth    depth of the iteration in plies
+ * @param nodes    nodes searched since the search started, across all iterations
+ * @param millis   time since the search started
+ * @param pv       principal variation, starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long millis, List<ChessMove> pv) {
+
+    public long nodesPerSecond() {
+        return millis == 0 ? nodes * 1000 : nodes * 1000 / millis;
+    }
+
+    /**
+     * @return the effective branching factor, the b for which b^depth equals the nodes searched
+     */
+    public double branchingFactor() {
+        return depth == 0 ? 0 : Math.pow(nodes, 1.0 / depth);
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    /**
+     * @return moves until mate, negative when the side to move is being mated, or 0 if the score is
+     * not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d score %s nodes %d nps %d ebf %.2f time %d pv %s", depth,
+                isMate() ? "mate " + mateIn() : "cp " + score, nodes, nodesPerSecond(), branchingFactor(), millis,
+                pv.stream().map(Perft::moveName).collect(Collectors.joining(" ")));
+    }
+}
@@ -0,0 +1,222 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of search results keyed by 64-bit position key (see
+ * {@link chess.ChessGame#positionKey()}), stored in a flat long[] with no per-entry objects.
+ * <p>
+ * Each entry is two longs: the key XOR the data, then the data. Threads share the table without
+ * locks; a probe recomputes key XOR data and only accepts the entry if it gives back the probed
+ * key, so an entry half written by another thread, or torn on a JVM without atomic long writes,
+ * reads as a miss instead of as another position's result.
+ * <p>
+ * Entries sit in buckets of {@link #BUCKET_SIZE}. A store replaces the bucket's entry for the same
+ * position if there is one, otherwise the entry that is least worth keeping: entries left over
+ * from an earlier search (see {@link #newSearch()}) go first, then the shallowest.
+ * <p>
+ * Data layout, low bit first: move (16 bits, packed as in {@link chess.MoveList}), score (16 bits,
+ * signed), depth (8 bits), bound (2 bits) and the search generation (8 bits).
+ */
+public class TranspositionTable {
+
+    public static final int BUCKET_SIZE = 2;
+
+    public static final int EXACT = 1;
+    // Score is at least the stored value, the search failed high
+    public static final int LOWER = 2;
+    // Score is at most the stored value, no move raised alpha
+    public static final int UPPER = 3;
+
+    // Returned by probe when the position is not in the table; no stored data is 0 since bound is never 0
+    public static final long NO_ENTRY = 0L;
+
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int GENERATION_SHIFT = 42;
+    private static final int LONGS_PER_ENTRY = 2;
+    private static final int BYTES_PER_ENTRY = LONGS_PER_ENTRY * Long.BYTES;
+
+    private final long[] table;
+    private final int bucketMask;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * @param megabytes memory to use, rounded down to a power of two number of buckets
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB");
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (BYTES_PER_ENTRY * BUCKET_SIZE));
+        if (buckets * BUCKET_SIZE * LONGS_PER_ENTRY > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Transposition table of " + megabytes + " MB is too large");
+        }
+        table = new long[(int) buckets * BUCKET_SIZE * LONGS_PER_ENTRY];
+        bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @return the entry's data, to be read with {@link #move}, {@link #score}, {@link #depth} and
+     * {@link #bound}, or {@link #NO_ENTRY}
+     */
+    public long probe(long key) {
+        probes.increment();
+        int base = bucket(key);
+        for (int i = base; i < base + BUCKET_SIZE * LONGS_PER_ENTRY; i += LONGS_PER_ENTRY) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != NO_ENTRY) {
+                hits.increment();
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores a search result, replacing the bucket's entry for the same position or the one least
+     * worth keeping
+     *
+     * @param move  best move found, packed as in {@link chess.MoveList}, or 0 to keep any move
+     *              already stored for the position
+     * @param score score to store, already adjusted for mate distance by the caller
+     * @param depth remaining depth the score was searched to
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucket(key);
+        int current = generation;
+        int replace = base;
+        int replaceWorth = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_SIZE * LONGS_PER_ENTRY; i += LONGS_PER_ENTRY) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != NO_ENTRY) {
+                if (move == 0) {
+                    move = move(data);
+                }
+                replace = i;
+                break;
+            }
+            int worth = worth(data, current);
+            if (worth < replaceWorth) {
+                replace = i;
+                replaceWorth = worth;
+            }
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << SCORE_SHIFT)
+                | ((long) Math.min(Math.max(depth, 0), 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) current << GENERATION_SHIFT);
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+        stores.increment();
+    }
+
+    // Empty entries are worth least, then entries from earlier searches, then shallow ones
+    private static int worth(long data, int current) {
+        if (data == NO_ENTRY) {
+            return -2;
+        }
+        if (generation(data) != current) {
+            return -1;
+        }
+        return depth(data);
+    }
+
+    /**
+     * Starts a new search generation, so entries stored before it are replaced first
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE * LONGS_PER_ENTRY;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> GENERATION_SHIFT) & 0xFF);
+    }
+
+    /**
+     * @return number of entries the table can hold
+     */
+    public int capacity() {
+        return table.length / LONGS_PER_ENTRY;
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long stores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return fraction of probes that found their position, 0 before the first probe
+     */
+    public double hitRate() {
+        long p = probes.sum();
+        return p == 0 ? 0 : (double) hits.sum() / p;
+    }
+
+    /**
+     * @return fraction of a sample of entries written during the current search
+     */
+    public double fillRate() {
+        int sample = Math.min(capacity(), 1000);
+        int current = generation;
+        int filled = 0;
+        for (int i = 0; i < sample * LONGS_PER_ENTRY; i += LONGS_PER_ENTRY) {
+            long data = table[i + 1];
+            if (data != NO_ENTRY && generation(data) == current) {
+                filled++;
+            }
+        }
+        return (double) filled / sample;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TranspositionTable{entries=%d, probes=%d, hits=%d, hitRate=%.1f%%, filled=%.1f%%}",
+                capacity(), probes(), hits(), hitRate() * 100, fillRate() * 100);
+    }
+}
@@ -0,0 +1,64 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class AttackMapTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -";
+
+    @Test
+    @DisplayName("Incremental attack maps match recomputed ones through random games")
+    public void incrementalMatchesRecomputed() {
+        Random random = new Random(240);
+        for (int game = 0; game < 50; game++) {
+            ChessGame start = ChessGame.fromFen(game % 2 == 0 ? Perft.START_FEN : KIWIPETE);
+            ChessBoard tracked = start.getBoard().copy();
+            tracked.setAttackTracking(true);
+            ChessBoard plain = start.getBoard();
+            ChessGame.TeamColor turn = start.getTeamTurn();
+            int[] undo = new int[60];
+            int played = 0;
+            MoveList moves = new MoveList();
+            while (played < undo.length) {
+                moves.clear();
+                PinAwareMoveUtil.allLegalMoves(plain, turn, moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                int move = moves.get(random.nextInt(moves.size()));
+                undo[played++] = tracked.makeMove(move);
+                plain.makeMove(move);
+                assertSameAttacks(plain, tracked);
+                if (played % 10 == 0) {
+                    // Copies carry the attacker counts over, so they keep tracking from here
+                    tracked = tracked.copy();
+                }
+                turn = BitboardUtil.opponent(turn);
+            }
+            while (played > 0) {
+                int record = undo[--played];
+                tracked.unmakeMove(record);
+                plain.unmakeMove(record);
+                assertSameAttacks(plain, tracked);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Make/unmake perft gives the same count with attack maps on")
+    public void perftWithAttackMaps() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        game.getBoard().setAttackTracking(true);
+        Assertions.assertEquals(86585, new Perft(ChessGame.MoveEngine.MAKE_UNMAKE).perft(game, 3));
+    }
+
+    private static void assertSameAttacks(ChessBoard plain, ChessBoard tracked) {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            Assertions.assertEquals(plain.getAttacks(color), tracked.getAttacks(color), tracked.toString());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+public class BitboardTests {
+
+    @Test
+    @DisplayName("Initializes the magic tables before or after the bitboard helpers")
+    public void initializationOrder() throws Exception {
+        URL classes = MagicBitboards.class.getProtectionDomain().getCodeSource().getLocation();
+        for (String first : new String[]{"chess.MagicBitboards", "chess.BitboardUtil"}) {
+            // A fresh loader so neither class has been initialized yet
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{classes}, ClassLoader.getPlatformClassLoader())) {
+                Class.forName(first, true, loader);
+                Class<?> util = Class.forName("chess.BitboardUtil", true, loader);
+                long between = (long) util.getMethod("between", int.class, int.class).invoke(null, 0, 63);
+                Assertions.assertEquals(BitboardUtil.between(0, 63), between, first);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Finds the squares between and along aligned squares")
+    public void betweenAndLine() {
+        int a1 = BitboardUtil.square(1, 1);
+        int a8 = BitboardUtil.square(8, 1);
+        int h8 = BitboardUtil.square(8, 8);
+        int b3 = BitboardUtil.square(3, 2);
+        Assertions.assertEquals(6, Long.bitCount(BitboardUtil.between(a1, a8)));
+        Assertions.assertEquals(BitboardUtil.COLUMN_1, BitboardUtil.line(a1, a8));
+        Assertions.assertEquals(6, Long.bitCount(BitboardUtil.between(a1, h8)));
+        Assertions.assertEquals(8, Long.bitCount(BitboardUtil.line(a1, h8)));
+        Assertions.assertEquals(0L, BitboardUtil.between(a1, b3));
+        Assertions.assertEquals(0L, BitboardUtil.line(a1, b3));
+    }
+
+    @Test
+    @DisplayName("Attacks of a set of squares are the union of each square's attacks")
+    public void setAttacks() {
+        long squares = BitboardUtil.bit(BitboardUtil.square(1, 1)) | BitboardUtil.bit(BitboardUtil.square(4, 5))
+                | BitboardUtil.bit(BitboardUtil.square(8, 8));
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            long knights = 0L;
+            long kings = 0L;
+            long pawns = 0L;
+            for (long bits = squares; bits != 0; bits &= bits - 1) {
+                int square = Long.numberOfTrailingZeros(bits);
+                knights |= BitboardUtil.knightAttacks(square);
+                kings |= BitboardUtil.kingAttacks(square);
+                pawns |= BitboardUtil.pawnAttacks(square, color);
+            }
+            Assertions.assertEquals(knights, BitboardUtil.knightAttacksOf(squares));
+            Assertions.assertEquals(kings, BitboardUtil.kingAttacksOf(squares));
+            Assertions.assertEquals(pawns, BitboardUtil.pawnAttacksOf(squares, color));
+        }
+    }
+
+    @Test
+    @DisplayName("Boards read from JSON are indexed as they are read")
+    public void jsonBoard() {
+        ChessBoard board = ChessBoard.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R");
+        Gson gson = new Gson();
+        JsonObject json = gson.toJsonTree(board).getAsJsonObject();
+        Assertions.assertEquals(1, json.size(), "only the board array is written");
+
+        ChessBoard loaded = gson.fromJson(json, ChessBoard.class);
+        Assertions.assertEquals(board.positionKey(), loaded.positionKey());
+        Assertions.assertEquals(board.getOccupied(), loaded.getOccupied());
+        Assertions.assertEquals(board.getKingSquare(ChessGame.TeamColor.BLACK),
+                loaded.getKingSquare(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(board.getPieceCount(ChessGame.TeamColor.WHITE),
+                loaded.getPieceCount(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(board, loaded);
+    }
+}
@@ -0,0 +1,90 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ClassifyPositionTests {
+
+    @Test
+    @DisplayName("Classifies checkmate for either side")
+    public void checkmate() {
+        assertClassified("R5k1/5ppp/8/8/8/8/5PPP/6K1 b - -", ChessGame.GameState.WHITE_WIN_CHECKMATE);
+        // Fool's mate
+        assertClassified("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - -",
+                ChessGame.GameState.BLACK_WIN_CHECKMATE);
+    }
+
+    @Test
+    @DisplayName("Classifies stalemate")
+    public void stalemate() {
+        assertClassified("k7/8/1Q6/8/8/8/8/7K b - -", ChessGame.GameState.DRAW_STALEMATE);
+    }
+
+    @Test
+    @DisplayName("Classifies check with moves left")
+    public void check() {
+        assertClassified("4k3/8/8/8/8/8/8/4RK2 b - -", ChessGame.GameState.BLACK_CHECK);
+        assertClassified("4k3/8/8/8/8/8/8/r3K3 w - -", ChessGame.GameState.WHITE_CHECK);
+    }
+
+    @Test
+    @DisplayName("Classifies a quiet position as normal")
+    public void normal() {
+        assertClassified(Perft.START_FEN, ChessGame.GameState.NORMAL);
+        assertClassified("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -",
+                ChessGame.GameState.NORMAL);
+    }
+
+    @Test
+    @DisplayName("Classifies the side not to move without its move set")
+    public void otherSide() {
+        // White to move, but black is already mated; and the reverse with black stalemating white
+        ChessGame game = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/5PPP/6K1 w - -");
+        Assertions.assertEquals(ChessGame.GameState.WHITE_WIN_CHECKMATE,
+                game.classifyPosition(ChessGame.TeamColor.BLACK));
+        game = ChessGame.fromFen("7k/8/8/8/8/8/2q5/K7 b - -");
+        Assertions.assertEquals(ChessGame.GameState.DRAW_STALEMATE, game.classifyPosition(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Agrees with the full move set along random games")
+    public void matchesMoveSet() throws InvalidMoveException {
+        Random random = new Random(11);
+        for (int gameNumber = 0; gameNumber < 10; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120 && !game.getState().isGameOver(); ply++) {
+                ChessGame.TeamColor turn = game.getTeamTurn();
+                ChessGame fresh = ChessGame.fromFen(game.toFen());
+                boolean canMove = !fresh.allValidMoves().isEmpty();
+                boolean inCheck = fresh.isInCheck(turn);
+                // A separate game so the classification takes its own pass instead of reading fresh's move set
+                ChessGame.GameState classified = ChessGame.fromFen(game.toFen()).classifyPosition(turn);
+                Assertions.assertEquals(!canMove && inCheck, isCheckmate(classified), game.toFen());
+                Assertions.assertEquals(!canMove && !inCheck, classified == ChessGame.GameState.DRAW_STALEMATE);
+                Assertions.assertEquals(canMove && inCheck, classified == ChessGame.GameState.WHITE_CHECK
+                        || classified == ChessGame.GameState.BLACK_CHECK);
+
+                List<ChessMove> moves = new ArrayList<>(game.allValidMoves());
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    private static void assertClassified(String fen, ChessGame.GameState expected) {
+        for (ChessGame.MoveEngine engine : ChessGame.MoveEngine.values()) {
+            ChessGame game = ChessGame.fromFen(fen);
+            game.setMoveEngine(engine);
+            Assertions.assertEquals(expected, game.classifyPosition(game.getTeamTurn()), fen + " with " + engine);
+            Assertions.assertEquals(expected, game.getState(), fen);
+        }
+    }
+
+    private static boolean isCheckmate(ChessGame.GameState state) {
+        return state == ChessGame.GameState.WHITE_WIN_CHECKMATE || state == ChessGame.GameState.BLACK_WIN_CHECKMATE;
+    }
+}
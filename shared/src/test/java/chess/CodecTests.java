@@ -0,0 +1,87 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+public class CodecTests {
+
+    @Test
+    @DisplayName("Games round trip through 34 bytes")
+    public void roundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        byte[] bytes = game.toBytes();
+        Assertions.assertEquals(34, bytes.length);
+        ChessGame decoded = ChessGame.fromBytes(bytes);
+        Assertions.assertEquals(game, decoded);
+        Assertions.assertEquals(game.positionKey(), decoded.positionKey());
+        Assertions.assertEquals(ChessGame.GameState.BLACK_WIN_CHECKMATE, decoded.getState());
+        Assertions.assertEquals(game, new Gson().fromJson(new Gson().toJson(decoded), ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("Several games share one buffer")
+    public void sequentialInBuffer() {
+        ChessGame first = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b - -");
+        ChessGame second = new ChessGame();
+        ByteBuffer buffer = ByteBuffer.allocate(2 * ChessGame.ENCODED_SIZE);
+        first.write(buffer);
+        second.write(buffer);
+        Assertions.assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        Assertions.assertEquals(first, ChessGame.read(buffer));
+        Assertions.assertEquals(second, ChessGame.read(buffer));
+    }
+
+    @Test
+    @DisplayName("Bad bytes are rejected")
+    public void invalidBytes() {
+        byte[] bytes = new ChessGame().toBytes();
+        bytes[20] = (byte) 0xDD;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(bytes));
+
+        // Side to move is bit 0, the halfmove clock above it may not pass 100
+        byte[] badTurn = new ChessGame().toBytes();
+        badTurn[ChessBoard.ENCODED_SIZE] = (byte) 0xFF;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(badTurn));
+
+        byte[] badState = new ChessGame().toBytes();
+        badState[ChessBoard.ENCODED_SIZE + 1] = 10;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(badState));
+    }
+
+    @Test
+    @DisplayName("Turn and state use fixed codes and the halfmove clock is kept")
+    public void stableCodes() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/r3K3 w - - 37 1");
+        byte[] bytes = game.toBytes();
+        Assertions.assertEquals(37 << 1, bytes[ChessBoard.ENCODED_SIZE]);
+        Assertions.assertEquals(5, bytes[ChessBoard.ENCODED_SIZE + 1]);
+        ChessGame decoded = ChessGame.fromBytes(bytes);
+        Assertions.assertEquals(ChessGame.GameState.WHITE_CHECK, decoded.getState());
+        Assertions.assertEquals(37, decoded.getHalfmoveClock());
+        Assertions.assertEquals(game.toFen(), decoded.toFen());
+
+        // Written before the clock was encoded: turn byte 1 for black, state code 7 for normal
+        bytes = new ChessGame().toBytes();
+        bytes[ChessBoard.ENCODED_SIZE] = 1;
+        bytes[ChessBoard.ENCODED_SIZE + 1] = 7;
+        decoded = ChessGame.fromBytes(bytes);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, decoded.getState());
+        Assertions.assertEquals(0, decoded.getHalfmoveClock());
+
+        ChessGame drawn = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 120 1");
+        decoded = ChessGame.fromBytes(drawn.toBytes());
+        Assertions.assertEquals(ChessGame.GameState.DRAW_FIFTY_MOVE, decoded.getState());
+        Assertions.assertEquals(100, decoded.getHalfmoveClock());
+    }
+}
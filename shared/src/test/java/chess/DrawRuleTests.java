@@ -0,0 +1,115 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class DrawRuleTests {
+
+    private static final ChessMove WHITE_OUT = move(1, 7, 3, 6);
+    private static final ChessMove BLACK_OUT = move(8, 7, 6, 6);
+    private static final ChessMove WHITE_BACK = move(3, 6, 1, 7);
+    private static final ChessMove BLACK_BACK = move(6, 6, 8, 7);
+
+    @Test
+    @DisplayName("Third occurrence of a position draws the game")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        Assertions.assertEquals(1, game.repetitionCount());
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, game.getState());
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, game.getState());
+        game.makeMove(BLACK_BACK);
+        Assertions.assertEquals(2, game.repetitionCount());
+        Assertions.assertEquals(ChessGame.GameState.DRAW_REPETITION, game.getState());
+        Assertions.assertTrue(game.getState().isGameOver());
+    }
+
+    @Test
+    @DisplayName("A pawn move cuts off earlier positions")
+    public void irreversibleMoveResetsRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 1, 3, 1));
+        game.makeMove(move(7, 1, 6, 1));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        shuffleKnights(game);
+        Assertions.assertEquals(4, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.repetitionCount());
+    }
+
+    @Test
+    @DisplayName("Repetitions are still found after a JSON round trip")
+    public void repetitionAfterReload() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+        ChessGame loaded = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game.getHalfmoveClock(), loaded.getHalfmoveClock());
+        loaded.makeMove(BLACK_BACK);
+        Assertions.assertEquals(ChessGame.GameState.DRAW_REPETITION, loaded.getState());
+    }
+
+    @Test
+    @DisplayName("Hundred plies without a capture or pawn move draw the game")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/R3K3 w - - 98 60");
+        Assertions.assertEquals(98, game.getHalfmoveClock());
+        game.makeMove(move(1, 1, 2, 1));
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, game.getState());
+        game.makeMove(move(8, 5, 8, 4));
+        Assertions.assertEquals(ChessGame.GameState.DRAW_FIFTY_MOVE, game.getState());
+        Assertions.assertEquals("3k4/8/8/8/8/8/R3P3/4K3 w - - 100 1", game.toFen());
+
+        ChessGame reset = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/R3K3 w - - 99 60");
+        reset.makeMove(move(2, 5, 4, 5));
+        Assertions.assertEquals(0, reset.getHalfmoveClock());
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, reset.getState());
+    }
+
+    @Test
+    @DisplayName("Checkmate on the hundredth ply stands")
+    public void mateBeatsFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("6k1/R7/6K1/8/8/8/8/8 w - - 99 80");
+        game.makeMove(move(7, 1, 8, 1));
+        Assertions.assertEquals(ChessGame.GameState.WHITE_WIN_CHECKMATE, game.getState());
+    }
+
+    @Test
+    @DisplayName("Malformed halfmove clock is rejected")
+    public void malformedClock() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("4k3/8/8/8/8/8/4P3/R3K3 w - - x 1"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("4k3/8/8/8/8/8/4P3/R3K3 w - - -3 1"));
+    }
+
+    @Test
+    @DisplayName("The draw states come after the original states")
+    public void stateOrder() {
+        List<ChessGame.GameState> original = List.of(ChessGame.GameState.WHITE_WIN_CHECKMATE,
+                ChessGame.GameState.BLACK_WIN_CHECKMATE, ChessGame.GameState.WHITE_WIN_OPP_RESIGN,
+                ChessGame.GameState.BLACK_WIN_OPP_RESIGN, ChessGame.GameState.DRAW_STALEMATE,
+                ChessGame.GameState.WHITE_CHECK, ChessGame.GameState.BLACK_CHECK, ChessGame.GameState.NORMAL);
+        Assertions.assertEquals(original, List.of(ChessGame.GameState.values()).subList(0, original.size()));
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+        game.makeMove(BLACK_BACK);
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("New game writes the standard starting FEN")
+    public void startingPosition() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(Perft.START_FEN, game.toFen());
+        Assertions.assertEquals(game, ChessGame.fromFen(Perft.START_FEN));
+        Assertions.assertEquals(game.positionKey(), ChessGame.fromFen(Perft.START_FEN).positionKey());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w - - 0 1"
+    })
+    @DisplayName("FEN round trips")
+    public void roundTrip(String fen) {
+        ChessGame game = ChessGame.fromFen(fen);
+        Assertions.assertEquals(fen, game.toFen());
+        Assertions.assertEquals(game.getBoard(), ChessBoard.fromFen(game.getBoard().toFen()));
+    }
+
+    @Test
+    @DisplayName("State is worked out from the position")
+    public void stateFromPosition() {
+        ChessGame mated = ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - -");
+        Assertions.assertEquals(ChessGame.GameState.BLACK_WIN_CHECKMATE, mated.getState());
+        ChessGame stalemate = ChessGame.fromFen("k7/8/1Q6/8/8/8/8/7K b - -");
+        Assertions.assertEquals(ChessGame.GameState.DRAW_STALEMATE, stalemate.getState());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w",
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN w",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x"
+    })
+    @DisplayName("Malformed FEN is rejected")
+    public void malformed(String fen) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen));
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class HistoryTests {
+
+    @Test
+    @DisplayName("Moves are recorded in order")
+    public void recordsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<ChessMove> played = playRandom(game, 80, 18);
+        Assertions.assertEquals(played.size(), game.getMoveCount());
+        Assertions.assertEquals(played, game.getMoveHistory());
+        for (int ply = 0; ply < played.size(); ply++) {
+            Assertions.assertEquals(played.get(ply), game.getMove(ply));
+        }
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> game.getMove(played.size()));
+    }
+
+    @Test
+    @DisplayName("positionAt matches the game as it stood at each ply")
+    public void positionAt() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<ChessGame> snapshots = new ArrayList<>();
+        snapshots.add(ChessGame.fromFen(game.toFen()));
+        Random random = new Random(7);
+        for (int ply = 0; ply < 60 && !game.getState().isGameOver(); ply++) {
+            List<ChessMove> moves = new ArrayList<>(game.allValidMoves());
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+            snapshots.add(ChessGame.fromFen(game.toFen()));
+        }
+        String current = game.toFen();
+        for (int ply = 0; ply < snapshots.size(); ply++) {
+            ChessGame past = game.positionAt(ply);
+            Assertions.assertEquals(snapshots.get(ply), past, "ply " + ply);
+            Assertions.assertEquals(0, past.getMoveCount());
+        }
+        Assertions.assertEquals(current, game.toFen());
+    }
+
+    @Test
+    @DisplayName("replay walks forward from any ply")
+    public void replay() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<ChessMove> played = playRandom(game, 40, 3);
+        int from = 10;
+        List<ChessMove> seen = new ArrayList<>();
+        game.replay(from, played.size(), (ply, move, board) -> {
+            seen.add(move);
+            Assertions.assertEquals(game.positionAt(ply).getBoard(), board);
+        });
+        Assertions.assertEquals(played.subList(from, played.size()), seen);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> game.replay(5, 4, (ply, move, board) -> {}));
+    }
+
+    @Test
+    @DisplayName("History survives a JSON round trip and is cleared with the board")
+    public void serialization() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<ChessMove> played = playRandom(game, 50, 11);
+        Gson gson = new Gson();
+        ChessGame loaded = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(played, loaded.getMoveHistory());
+        Assertions.assertEquals(game.positionAt(0), loaded.positionAt(0));
+
+        ChessGame old = gson.fromJson("{\"cboard\":" + gson.toJson(game.getBoard()) + ",\"teamTurn\":\""
+                + game.getTeamTurn() + "\",\"state\":\"" + game.getState() + "\"}", ChessGame.class);
+        Assertions.assertEquals(0, old.getMoveCount());
+
+        loaded.setBoard(new ChessBoard());
+        Assertions.assertEquals(0, loaded.getMoveCount());
+    }
+
+    @Test
+    @DisplayName("Saved history holds only the moves made and grows again once loaded")
+    public void trimmedHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<ChessMove> played = playRandom(game, 37, 5);
+        Gson gson = new Gson();
+        JsonObject json = gson.toJsonTree(game).getAsJsonObject();
+        Assertions.assertEquals(played.size(), json.getAsJsonArray("moveHistory").size());
+
+        ChessGame loaded = gson.fromJson(json, ChessGame.class);
+        played.addAll(playRandom(loaded, 40, 6));
+        Assertions.assertEquals(played, loaded.getMoveHistory());
+    }
+
+    private static List<ChessMove> playRandom(ChessGame game, int plies, long seed) throws InvalidMoveException {
+        Random random = new Random(seed);
+        List<ChessMove> played = new ArrayList<>();
+        for (int ply = 0; ply < plies && !game.getState().isGameOver(); ply++) {
+            List<ChessMove> moves = new ArrayList<>(game.allValidMoves());
+            ChessMove move = moves.get(random.nextInt(moves.size()));
+            game.makeMove(move);
+            played.add(move);
+        }
+        return played;
+    }
+}
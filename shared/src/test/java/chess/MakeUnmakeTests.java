@@ -0,0 +1,138 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class MakeUnmakeTests {
+
+    private static final String[] POSITIONS = {
+            Perft.START_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -",
+            // White and black pawns one step from promoting, with captures onto the back ranks
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w - -"
+    };
+    private static final int PLIES = 80;
+
+    @Test
+    @DisplayName("Unmaking a random line restores the board and its key")
+    public void restoresBoard() {
+        for (String fen : POSITIONS) {
+            for (long seed = 0; seed < 5; seed++) {
+                ChessGame game = ChessGame.fromFen(fen);
+                ChessBoard board = game.getBoard();
+                String placement = board.toFen();
+                long key = board.positionKey();
+                long[] bitboards = bitboards(board);
+
+                int[] undos = playRandom(board, game.getTeamTurn(), seed);
+                for (int ply = undos.length - 1; ply >= 0; ply--) {
+                    board.unmakeMove(undos[ply]);
+                }
+
+                Assertions.assertEquals(placement, board.toFen(), fen + " seed " + seed);
+                Assertions.assertEquals(key, board.positionKey());
+                Assertions.assertArrayEquals(bitboards, bitboards(board));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Checking legality by making and unmaking moves leaves the board unchanged")
+    public void legalityCheckRestoresBoard() {
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            ChessBoard board = game.getBoard();
+            String placement = board.toFen();
+            long key = board.positionKey();
+
+            MoveList makeUnmake = new MoveList();
+            ChessGame.MoveEngine.MAKE_UNMAKE.allLegalMoves(board, game.getTeamTurn(), makeUnmake);
+            MoveList pinAware = new MoveList();
+            ChessGame.MoveEngine.PIN_AWARE.allLegalMoves(board, game.getTeamTurn(), pinAware);
+
+            Assertions.assertEquals(placement, board.toFen());
+            Assertions.assertEquals(key, board.positionKey());
+            Assertions.assertEquals(pinAware.size(), makeUnmake.size(), fen);
+            for (int i = 0; i < pinAware.size(); i++) {
+                Assertions.assertTrue(makeUnmake.contains(pinAware.get(i)), MoveList.toChessMove(pinAware.get(i))
+                        .toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Piece lists and king squares follow every move and unmake")
+    public void tracksPieceLists() {
+        for (String fen : POSITIONS) {
+            for (long seed = 0; seed < 5; seed++) {
+                ChessGame game = ChessGame.fromFen(fen);
+                ChessBoard board = game.getBoard();
+                int[] undos = playRandom(board, game.getTeamTurn(), seed);
+                for (int ply = undos.length - 1; ply >= 0; ply--) {
+                    assertPieceListsMatch(board);
+                    board.unmakeMove(undos[ply]);
+                }
+                assertPieceListsMatch(board);
+            }
+        }
+    }
+
+    // Each piece list must hold every square of its color exactly once, and the king square its king
+    private static void assertPieceListsMatch(ChessBoard board) {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            long listed = 0L;
+            for (int i = 0; i < board.getPieceCount(color); i++) {
+                long square = BitboardUtil.bit(board.getPieceSquare(color, i));
+                Assertions.assertEquals(0L, listed & square, "square listed twice");
+                listed |= square;
+            }
+            Assertions.assertEquals(board.getOccupancy(color), listed);
+            long king = board.getBitboard(color, ChessPiece.PieceType.KING);
+            Assertions.assertEquals(king == 0 ? ChessBoard.NO_SQUARE : Long.numberOfTrailingZeros(king),
+                    board.getKingSquare(color));
+        }
+    }
+
+    /**
+     * Plays up to PLIES random legal moves, checking the incrementally updated board against one
+     * indexed from scratch after each, and stops early if the side to move has no moves
+     *
+     * @return the undo records of the moves played, oldest first
+     */
+    private static int[] playRandom(ChessBoard board, ChessGame.TeamColor turn, long seed) {
+        Random random = new Random(seed);
+        MoveGenerator generator = new MoveGenerator();
+        int[] undos = new int[PLIES];
+        int played = 0;
+        while (played < PLIES) {
+            MoveList moves = generator.generate(board, turn, 0);
+            if (moves.isEmpty()) {
+                break;
+            }
+            undos[played++] = board.makeMove(moves.get(random.nextInt(moves.size())));
+            turn = BitboardUtil.opponent(turn);
+            ChessBoard fresh = ChessBoard.fromFen(board.toFen());
+            Assertions.assertEquals(fresh.positionKey(), board.positionKey());
+            Assertions.assertArrayEquals(bitboards(fresh), bitboards(board));
+            assertPieceListsMatch(board);
+        }
+        return Arrays.copyOf(undos, played);
+    }
+
+    // Every piece bitboard, then each color's occupancy, then all occupied squares
+    private static long[] bitboards(ChessBoard board) {
+        long[] bitboards = new long[BitboardUtil.PIECE_KINDS + 3];
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                bitboards[BitboardUtil.pieceIndex(color, type)] = board.getBitboard(color, type);
+            }
+            bitboards[BitboardUtil.PIECE_KINDS + color.ordinal()] = board.getOccupancy(color);
+        }
+        bitboards[BitboardUtil.PIECE_KINDS + 2] = board.getOccupied();
+        return bitboards;
+    }
+}
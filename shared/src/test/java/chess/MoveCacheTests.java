@@ -0,0 +1,56 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MoveCacheTests {
+
+    @Test
+    @DisplayName("All valid moves are cached until a move is made")
+    public void allValidMovesCached() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        var opening = game.allValidMoves();
+        Assertions.assertEquals(20, opening.size());
+        Assertions.assertSame(opening, game.allValidMoves());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        var reply = game.allValidMoves();
+        Assertions.assertNotSame(opening, reply);
+        Assertions.assertEquals(20, reply.size());
+        Assertions.assertTrue(reply.stream().allMatch(move -> move.getStartPosition().getRow() >= 7));
+    }
+
+    @Test
+    @DisplayName("Editing the board directly does not leave stale moves behind")
+    public void boardEditRefreshesMoves() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(20, game.allValidMoves().size());
+        game.getBoard().addPiece(new ChessPosition(2, 5), null);
+        Assertions.assertEquals(29, game.allValidMoves().size());
+        Assertions.assertEquals(5, game.validMoves(new ChessPosition(1, 6)).size());
+    }
+
+    @Test
+    @DisplayName("Moves for the side not to move are still generated")
+    public void otherTeamMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(2, game.validMoves(new ChessPosition(7, 5)).size());
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(
+                new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null)));
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+    }
+
+    @Test
+    @DisplayName("Switching move engines drops the moves the previous engine generated")
+    public void engineSwitchRefreshesMoves() {
+        ChessGame game = new ChessGame();
+        var pinAware = game.allValidMoves();
+        game.setMoveEngine(ChessGame.MoveEngine.MAKE_UNMAKE);
+        var makeUnmake = game.allValidMoves();
+        Assertions.assertNotSame(pinAware, makeUnmake);
+        Assertions.assertEquals(pinAware, makeUnmake);
+        Assertions.assertSame(makeUnmake, game.allValidMoves());
+    }
+}
@@ -0,0 +1,77 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class MoveGeneratorTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -";
+
+    @Test
+    @DisplayName("Generates the same moves as the game")
+    public void matchesGame() {
+        MoveGenerator generator = new MoveGenerator();
+        for (String fen : new String[]{Perft.START_FEN, KIWIPETE}) {
+            ChessGame game = ChessGame.fromFen(fen);
+            MoveList moves = generator.generate(game.getBoard(), game.getTeamTurn(), 0);
+            Assertions.assertEquals(game.allValidMoves(), moves.toChessMoves());
+        }
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(2, generator.generate(game.getBoard(), BitboardUtil.square(2, 5), 1).size());
+        Assertions.assertTrue(generator.generate(game.getBoard(), BitboardUtil.square(4, 5), 1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Validates moves for the side to move only")
+    public void validatesMoves() {
+        MoveGenerator generator = new MoveGenerator();
+        ChessBoard board = new ChessGame().getBoard();
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove e5 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(5, 5), null);
+        Assertions.assertTrue(generator.isLegal(board, ChessGame.TeamColor.WHITE, e4));
+        Assertions.assertFalse(generator.isLegal(board, ChessGame.TeamColor.BLACK, e4));
+        Assertions.assertFalse(generator.isLegal(board, ChessGame.TeamColor.WHITE, e5));
+    }
+
+    @Test
+    @DisplayName("Generating, validating and searching allocate nothing")
+    public void allocationFree() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        MoveGenerator generator = new MoveGenerator();
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        ChessBoard board = game.getBoard();
+        int move = MoveList.encode(new ChessMove(new ChessPosition(5, 5), new ChessPosition(7, 6), null));
+
+        long checksum = 0;
+        for (int i = 0; i < 2000; i++) {
+            checksum += walk(generator, board, game.getTeamTurn(), move);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 200; i++) {
+            checksum += walk(generator, board, game.getTeamTurn(), move);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        Assertions.assertEquals(2200L * walk(generator, board, game.getTeamTurn(), move), checksum);
+        Assertions.assertEquals(0, allocated, "bytes allocated in 200 calls");
+    }
+
+    // Generates the root moves and every reply, and validates one move
+    private static long walk(MoveGenerator generator, ChessBoard board, ChessGame.TeamColor turn, int move) {
+        MoveList moves = generator.generate(board, turn, 0);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = board.makeMove(moves.get(i));
+            nodes += generator.generate(board, BitboardUtil.opponent(turn), 1).size();
+            board.unmakeMove(undo);
+        }
+        return generator.isLegal(board, turn, move) ? nodes : -1;
+    }
+}
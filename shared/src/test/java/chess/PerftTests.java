@@ -0,0 +1,98 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Map;
+
+/**
+ * Perft totals for well known test positions. Castling and en passant do not exist in this ruleset,
+ * so the deeper counts differ from the published ones where those moves would appear.
+ */
+public class PerftTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -";
+
+    @ParameterizedTest(name = "{0} depth {1}")
+    @CsvSource(delimiter = ';', value = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - -; 1; 20",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - -; 2; 400",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - -; 3; 8902",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - -; 4; 197281",
+            KIWIPETE + "; 1; 46",
+            KIWIPETE + "; 2; 1865",
+            KIWIPETE + "; 3; 86585",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -; 3; 2810",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -; 4; 43087",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w - -; 3; 9217",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w - -; 3; 59922",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -; 3; 89890"
+    })
+    @DisplayName("Pin aware node counts")
+    public void pinAwareCounts(String fen, int depth, long nodes) {
+        assertPerft(ChessGame.MoveEngine.PIN_AWARE, fen, depth, nodes);
+    }
+
+    @ParameterizedTest(name = "{0} depth {1}")
+    @CsvSource(delimiter = ';', value = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - -; 3; 8902",
+            KIWIPETE + "; 2; 1865",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -; 3; 2810",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w - -; 3; 9217"
+    })
+    @DisplayName("Make/unmake node counts")
+    public void makeUnmakeCounts(String fen, int depth, long nodes) {
+        assertPerft(ChessGame.MoveEngine.MAKE_UNMAKE, fen, depth, nodes);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ChessGame.MoveEngine.class)
+    @DisplayName("Divide adds up to the total")
+    public void divideMatchesTotal(ChessGame.MoveEngine engine) {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        Perft perft = new Perft(engine);
+        Map<ChessMove, Long> divide = perft.divide(game.getBoard(), game.getTeamTurn(), 2);
+        Assertions.assertEquals(46, divide.size());
+        Assertions.assertEquals(1865, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @ParameterizedTest(name = "{0} threads, split at depth two: {1}")
+    @CsvSource({"1, false", "3, false", "4, true"})
+    @DisplayName("Parallel perft matches the single threaded count")
+    public void parallelCounts(int threads, boolean split) {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        ParallelPerft perft = new ParallelPerft(ChessGame.MoveEngine.PIN_AWARE, threads, split);
+        Assertions.assertEquals(86585, perft.perft(game, 3));
+        Assertions.assertEquals(new Perft().divide(game.getBoard(), game.getTeamTurn(), 3),
+                perft.divide(game.getBoard(), game.getTeamTurn(), 3));
+    }
+
+    @Test
+    @DisplayName("Perft leaves the board as it found it")
+    public void boardUnchanged() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        ChessBoard before = game.getBoard().copy();
+        long key = game.positionKey();
+        new Perft().perft(game, 3);
+        Assertions.assertEquals(before, game.getBoard());
+        Assertions.assertEquals(key, game.positionKey());
+    }
+
+    @Test
+    @DisplayName("Coordinate move names")
+    public void moveNames() {
+        Assertions.assertEquals("e2e4", Perft.moveName(
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        Assertions.assertEquals("a7a8n", Perft.moveName(
+                new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT)));
+    }
+
+    private static void assertPerft(ChessGame.MoveEngine engine, String fen, int depth, long nodes) {
+        ChessGame game = ChessGame.fromFen(fen);
+        Assertions.assertEquals(nodes, new Perft(engine).perft(game, depth), "Perft " + depth + " of " + fen);
+    }
+}
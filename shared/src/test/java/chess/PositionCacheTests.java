@@ -0,0 +1,136 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PositionCacheTests {
+
+    @AfterEach
+    public void removeCache() {
+        ChessGame.setPositionCache(null);
+    }
+
+    @Test
+    @DisplayName("Counts hits and misses")
+    public void hitsAndMisses() {
+        PositionCache cache = new PositionCache(4);
+        Assertions.assertNull(cache.get(1L));
+        cache.put(1L, moves(12), ChessGame.GameState.NORMAL);
+        PositionCache.Entry entry = cache.get(1L);
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(1, entry.moveCount());
+        Assertions.assertEquals(12, entry.move(0));
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, entry.state());
+        Assertions.assertEquals(1, cache.hits());
+        Assertions.assertEquals(1, cache.misses());
+        Assertions.assertEquals(0.5, cache.hitRate());
+    }
+
+    @Test
+    @DisplayName("Evicts entries not read since the clock hand last passed")
+    public void clockEviction() {
+        PositionCache cache = new PositionCache(3);
+        for (long key = 1; key <= 3; key++) {
+            cache.put(key, moves((int) key), ChessGame.GameState.NORMAL);
+        }
+        cache.get(1L);
+        cache.get(3L);
+        cache.put(4L, moves(4), ChessGame.GameState.NORMAL);
+
+        Assertions.assertEquals(3, cache.size());
+        Assertions.assertEquals(1, cache.evictions());
+        Assertions.assertNotNull(cache.get(1L));
+        Assertions.assertNull(cache.get(2L));
+        Assertions.assertNotNull(cache.get(3L));
+        Assertions.assertNotNull(cache.get(4L));
+    }
+
+    @Test
+    @DisplayName("Stays within capacity under concurrent use")
+    public void concurrentUse() throws InterruptedException {
+        PositionCache cache = new PositionCache(64);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                for (long key = 0; key < 5000; key++) {
+                    long k = (key * 7 + offset) % 500;
+                    if (cache.get(k) == null) {
+                        cache.put(k, moves((int) k), ChessGame.GameState.NORMAL);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertTrue(cache.size() <= 64, cache.toString());
+        Assertions.assertEquals(20000, cache.hits() + cache.misses());
+    }
+
+    @Test
+    @DisplayName("Games share cached moves and classifications")
+    public void sharedBetweenGames() throws InvalidMoveException {
+        PositionCache cache = new PositionCache(1000);
+        ChessGame.setPositionCache(cache);
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+
+        ChessGame first = new ChessGame();
+        first.makeMove(e4);
+        // Classifying the reply position does not cache it, generating its moves does
+        first.allValidMoves();
+        long misses = cache.misses();
+
+        ChessGame second = new ChessGame();
+        second.makeMove(e4);
+        Assertions.assertEquals(misses, cache.misses());
+        Assertions.assertEquals(2, cache.hits());
+        Assertions.assertEquals(first.allValidMoves(), second.allValidMoves());
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, second.getState());
+    }
+
+    @Test
+    @DisplayName("Cached classification reports checkmate")
+    public void cachedCheckmate() throws InvalidMoveException {
+        ChessGame.setPositionCache(new PositionCache(1000));
+        for (int i = 0; i < 2; i++) {
+            ChessGame game = new ChessGame();
+            game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+            game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+            game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+            Assertions.assertEquals(ChessGame.GameState.BLACK_WIN_CHECKMATE, game.getState());
+            Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        }
+    }
+
+    @Test
+    @DisplayName("Classifying a position missing from the cache stops at the first legal move")
+    public void missKeepsEarlyExit() {
+        PositionCache cache = new PositionCache(1000);
+        ChessGame.setPositionCache(cache);
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -");
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, game.classifyPosition(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0, cache.size());
+
+        game.allValidMoves();
+        Assertions.assertEquals(1, cache.size());
+        // Classifying and then generating the moves counts as one lookup
+        Assertions.assertEquals(1, cache.misses());
+        Assertions.assertEquals(ChessGame.GameState.NORMAL, ChessGame.fromFen(game.toFen()).getState());
+        Assertions.assertEquals(1, cache.hits());
+    }
+
+    private static MoveList moves(int move) {
+        MoveList list = new MoveList();
+        list.add(move);
+        return list;
+    }
+}
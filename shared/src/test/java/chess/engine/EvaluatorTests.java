@@ -0,0 +1,82 @@
+package chess.engine;
+
+import chess.BitboardUtil;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import chess.Perft;
+import chess.PinAwareMoveUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class EvaluatorTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -";
+    // Pawns one step from promoting on both sides, with captures onto the last rank available
+    private static final String PROMOTIONS = "rn2k3/1P4P1/8/8/8/8/1p4p1/RN2K3 w - -";
+
+    @Test
+    @DisplayName("Incremental scores match full recomputation through random games")
+    public void incrementalMatchesFull() {
+        Random random = new Random(24);
+        PieceSquareEvaluator full = new PieceSquareEvaluator();
+        IncrementalEvaluator incremental = new IncrementalEvaluator();
+        String[] starts = {Perft.START_FEN, KIWIPETE, PROMOTIONS};
+        for (int game = 0; game < 60; game++) {
+            ChessGame start = ChessGame.fromFen(starts[game % starts.length]);
+            ChessBoard board = start.getBoard();
+            ChessGame.TeamColor turn = start.getTeamTurn();
+            incremental.reset(board);
+            int[] undo = new int[80];
+            int played = 0;
+            MoveList moves = new MoveList();
+            while (played < undo.length) {
+                moves.clear();
+                PinAwareMoveUtil.allLegalMoves(board, turn, moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                undo[played] = board.makeMove(moves.get(random.nextInt(moves.size())));
+                incremental.moveMade(undo[played++]);
+                turn = BitboardUtil.opponent(turn);
+                Assertions.assertEquals(full.evaluate(board, turn), incremental.evaluate(board, turn),
+                        board.toString());
+            }
+            while (played > 0) {
+                board.unmakeMove(undo[--played]);
+                incremental.moveUnmade(undo[played]);
+                turn = BitboardUtil.opponent(turn);
+                Assertions.assertEquals(full.evaluate(board, turn), incremental.evaluate(board, turn),
+                        board.toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Scores are symmetric between the sides")
+    public void symmetric() {
+        PieceSquareEvaluator evaluator = new PieceSquareEvaluator();
+        ChessBoard start = ChessGame.fromFen(Perft.START_FEN).getBoard();
+        Assertions.assertEquals(0, evaluator.evaluate(start, ChessGame.TeamColor.WHITE));
+        ChessBoard white = ChessBoard.fromFen("4k3/8/8/8/3N4/8/PP6/4K3");
+        ChessBoard black = ChessBoard.fromFen("4k3/pp6/8/3n4/8/8/8/4K3");
+        Assertions.assertEquals(evaluator.evaluate(white, ChessGame.TeamColor.WHITE),
+                evaluator.evaluate(black, ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Endgame tables take over as material comes off")
+    public void tapered() {
+        PieceSquareEvaluator evaluator = new PieceSquareEvaluator();
+        // With queens on, a centralised king is a liability; in a pawn ending it is an asset
+        int middlegame = evaluator.evaluate(ChessBoard.fromFen("q3k3/8/8/8/4K3/8/8/Q7"), ChessGame.TeamColor.WHITE)
+                - evaluator.evaluate(ChessBoard.fromFen("q3k3/8/8/8/8/8/8/Q5K1"), ChessGame.TeamColor.WHITE);
+        int endgame = evaluator.evaluate(ChessBoard.fromFen("4k3/p7/8/8/4K3/8/P7/8"), ChessGame.TeamColor.WHITE)
+                - evaluator.evaluate(ChessBoard.fromFen("4k3/p7/8/8/8/8/P7/6K1"), ChessGame.TeamColor.WHITE);
+        Assertions.assertTrue(middlegame < endgame, middlegame + " vs " + endgame);
+        Assertions.assertTrue(endgame > 0);
+    }
+}
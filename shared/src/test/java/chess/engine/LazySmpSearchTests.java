@@ -0,0 +1,91 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class LazySmpSearchTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -";
+
+    @Test
+    @DisplayName("Threads agree on a forced mate")
+    public void findsMate() {
+        try (LazySmpSearch search = new LazySmpSearch(4)) {
+            LazySmpSearch.Result result = search.search(ChessGame.fromFen("k7/8/2K5/8/8/8/8/6R1 w - -"),
+                    SearchLimits.depth(6));
+            Assertions.assertEquals(2, result.best().mateIn(), result.best().toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Reports nodes for every thread and runs on its own pool")
+    public void perThreadReport() {
+        List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        try (LazySmpSearch search = new LazySmpSearch(3)) {
+            LazySmpSearch.Result result = search.search(game.getBoard(), game.getTeamTurn(), SearchLimits.depth(4),
+                    iteration -> threadNames.add(Thread.currentThread().getName()));
+            Assertions.assertEquals(3, result.nodesPerThread().length);
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertTrue(result.nodesPerThread()[i] > 0, "thread " + i);
+            }
+            Assertions.assertEquals(result.best().depth(), result.depthPerThread()[0]);
+            Assertions.assertNotNull(result.best().bestMove());
+            Assertions.assertEquals(4, threadNames.size());
+            Assertions.assertTrue(threadNames.stream().allMatch(name -> name.startsWith("lazy-smp-")),
+                    threadNames.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Takes a hanging queen with several threads, search after search")
+    public void reusable() {
+        ChessMove capture = new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null);
+        try (LazySmpSearch search = new LazySmpSearch(2)) {
+            for (int i = 0; i < 3; i++) {
+                LazySmpSearch.Result result = search.search(ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - -"),
+                        SearchLimits.depth(4));
+                Assertions.assertEquals(capture, result.best().bestMove());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Stops every thread at the time budget")
+    public void timeBudget() {
+        try (LazySmpSearch search = new LazySmpSearch(2)) {
+            long start = System.nanoTime();
+            LazySmpSearch.Result result = search.search(new ChessGame(), SearchLimits.millis(100));
+            Assertions.assertTrue(System.nanoTime() - start < 2_000_000_000L);
+            Assertions.assertNotNull(result.best().bestMove());
+        }
+    }
+
+    @Test
+    @DisplayName("Searches a board loaded from JSON, which is indexed as it is read")
+    public void jsonBoard() {
+        Gson gson = new Gson();
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - -");
+        String json = gson.toJson(game.getBoard());
+        ChessMove capture = new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null);
+        try (LazySmpSearch search = new LazySmpSearch(4)) {
+            for (int i = 0; i < 5; i++) {
+                ChessBoard board = gson.fromJson(json, ChessBoard.class);
+                LazySmpSearch.Result result = search.search(board, ChessGame.TeamColor.WHITE, SearchLimits.depth(3),
+                        null);
+                Assertions.assertEquals(capture, result.best().bestMove());
+                Assertions.assertEquals(game.getBoard().positionKey(), board.positionKey());
+            }
+        }
+    }
+}
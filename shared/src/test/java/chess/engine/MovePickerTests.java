@@ -0,0 +1,117 @@
+package chess.engine;
+
+import chess.BitboardUtil;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveGenerator;
+import chess.MoveList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MovePickerTests {
+
+    // White to move can take the queen with the pawn or the knight with the rook
+    private static final String FEN = "4k3/8/8/3q4/2Pn4/8/8/3RK3 w - -";
+
+    private static final int KING_F1 = MoveList.encode(4, 5, 0);
+    private static final int KING_F2 = MoveList.encode(4, 13, 0);
+    private static final int PAWN_TAKES_QUEEN = MoveList.encode(26, 35, 0);
+    private static final int ROOK_TAKES_KNIGHT = MoveList.encode(3, 27, 0);
+    private static final int ROOK_D2 = MoveList.encode(3, 11, 0);
+    private static final int PAWN_C5 = MoveList.encode(26, 34, 0);
+
+    private ChessGame game;
+    private MoveList moves;
+    private List<Integer> generated;
+    private int[][] history;
+    private MovePicker picker;
+
+    @BeforeEach
+    public void setUp() {
+        game = ChessGame.fromFen(FEN);
+        moves = new MoveGenerator().generate(game.getBoard(), game.getTeamTurn(), 0);
+        generated = toList(moves);
+        history = new int[BitboardUtil.PIECE_KINDS][64];
+        picker = new MovePicker(history);
+    }
+
+    @Test
+    @DisplayName("Hands out the hash move, captures, killers, then quiet moves by history")
+    public void stagedOrder() {
+        history[BitboardUtil.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)][13] = 100;
+        picker.init(game.getBoard(), moves, KING_F1, ROOK_D2, PAWN_C5, true, true);
+        List<Integer> picked = pickAll();
+
+        Assertions.assertEquals(List.of(KING_F1, PAWN_TAKES_QUEEN, ROOK_TAKES_KNIGHT, ROOK_D2, PAWN_C5, KING_F2),
+                picked.subList(0, 6));
+        assertSameMoves(generated, picked);
+    }
+
+    @Test
+    @DisplayName("Skips a hash move or killer that is not legal here")
+    public void ignoresMissingMoves() {
+        int illegal = MoveList.encode(0, 63, 0);
+        picker.init(game.getBoard(), moves, illegal, illegal, MoveList.NO_MOVE, true, true);
+        List<Integer> picked = pickAll();
+
+        Assertions.assertEquals(List.of(PAWN_TAKES_QUEEN, ROOK_TAKES_KNIGHT), picked.subList(0, 2));
+        assertSameMoves(generated, picked);
+    }
+
+    @Test
+    @DisplayName("Hands out only captures and promotions when quiet moves are left out")
+    public void tacticalOnly() {
+        picker.init(game.getBoard(), moves, KING_F1, ROOK_D2, PAWN_C5, false, true);
+        Assertions.assertEquals(List.of(PAWN_TAKES_QUEEN, ROOK_TAKES_KNIGHT), pickAll());
+    }
+
+    @Test
+    @DisplayName("Hands out moves in generation order when ordering is off")
+    public void unordered() {
+        picker.init(game.getBoard(), moves, KING_F1, ROOK_D2, PAWN_C5, true, false);
+        Assertions.assertEquals(generated, pickAll());
+    }
+
+    @Test
+    @DisplayName("Ordering searches fewer nodes to the same depth")
+    public void reducesNodes() {
+        SearchResult unordered = searchStart(false);
+        SearchResult ordered = searchStart(true);
+        Assertions.assertEquals(unordered.depth(), ordered.depth());
+        Assertions.assertTrue(ordered.nodes() * 2 < unordered.nodes(), ordered + " vs " + unordered);
+        Assertions.assertTrue(ordered.branchingFactor() < unordered.branchingFactor());
+    }
+
+    private static SearchResult searchStart(boolean ordered) {
+        Search search = new Search();
+        search.setMoveOrdering(ordered);
+        return search.search(new ChessGame(), SearchLimits.depth(4));
+    }
+
+    private List<Integer> pickAll() {
+        List<Integer> picked = new ArrayList<>();
+        for (int move = picker.next(); move != MoveList.NO_MOVE; move = picker.next()) {
+            picked.add(move);
+        }
+        Assertions.assertEquals(MoveList.NO_MOVE, picker.next());
+        return picked;
+    }
+
+    private static void assertSameMoves(List<Integer> expected, List<Integer> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected.stream().sorted().toList(), actual.stream().sorted().toList());
+    }
+
+    private static List<Integer> toList(MoveList moves) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            list.add(moves.get(i));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,153 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SearchTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -";
+
+    @Test
+    @DisplayName("Finds a back rank mate")
+    public void mateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - -");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(move(1, 1, 8, 1), result.bestMove());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Finds a mate in two")
+    public void mateInTwo() {
+        ChessGame game = ChessGame.fromFen("k7/8/2K5/8/8/8/8/6R1 w - -");
+        SearchResult result = new Search().search(game, SearchLimits.depth(6));
+        Assertions.assertEquals(2, result.mateIn(), result.toString());
+    }
+
+    @Test
+    @DisplayName("Takes a hanging queen")
+    public void winsMaterial() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - -");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(move(2, 4, 5, 4), result.bestMove());
+        Assertions.assertTrue(result.score() > 300, result.toString());
+    }
+
+    @Test
+    @DisplayName("Reports each iteration with a principal variation from the best move")
+    public void reportsIterations() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        String before = game.toFen();
+        List<SearchResult> iterations = new ArrayList<>();
+        SearchResult result = new Search().search(game.getBoard(), game.getTeamTurn(), SearchLimits.depth(3),
+                iterations::add);
+        Assertions.assertEquals(3, iterations.size());
+        for (int i = 0; i < iterations.size(); i++) {
+            SearchResult iteration = iterations.get(i);
+            Assertions.assertEquals(i + 1, iteration.depth());
+            Assertions.assertEquals(iteration.bestMove(), iteration.pv().get(0));
+            Assertions.assertTrue(iteration.pv().size() >= iteration.depth(), iteration.toString());
+        }
+        Assertions.assertEquals(iterations.get(2), result);
+        Assertions.assertEquals(before, game.toFen());
+    }
+
+    @Test
+    @DisplayName("Stops within the node budget")
+    public void nodeBudget() {
+        Search search = new Search();
+        SearchResult result = search.search(ChessGame.fromFen(KIWIPETE), SearchLimits.nodes(5000));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(search.getNodes() <= 5000 + 1024, "searched " + search.getNodes());
+    }
+
+    @Test
+    @DisplayName("Stops within the time budget")
+    public void timeBudget() {
+        long start = System.nanoTime();
+        SearchResult result = new Search().search(new ChessGame(), SearchLimits.millis(50));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+
+    @Test
+    @DisplayName("Returns promptly when its thread is interrupted")
+    public void interruption() throws InterruptedException {
+        AtomicReference<SearchResult> result = new AtomicReference<>();
+        Thread thread = new Thread(() -> result.set(new Search().search(ChessGame.fromFen(Perft.START_FEN),
+                SearchLimits.depth(Search.MAX_DEPTH))));
+        thread.start();
+        Thread.sleep(50);
+        thread.interrupt();
+        thread.join(2000);
+        Assertions.assertFalse(thread.isAlive());
+        Assertions.assertNotNull(result.get().bestMove());
+    }
+
+    @Test
+    @DisplayName("Returns no move when the side to move has none")
+    public void noLegalMoves() {
+        SearchResult result = new Search().search(ChessGame.fromFen("k7/8/1Q6/8/8/8/8/7K b - -"),
+                SearchLimits.depth(3));
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertEquals(0, result.score());
+    }
+
+    @Test
+    @DisplayName("Counts a repetition of a position from the game as a draw")
+    public void gameRepetition() throws InvalidMoveException {
+        // Black is a queen up; white's only way out is to return to a position the game already had
+        ChessGame game = ChessGame.fromFen("k7/8/8/8/8/8/q7/6NK w - -");
+        ChessMove knightOut = move(1, 7, 3, 6);
+        ChessMove knightBack = move(3, 6, 1, 7);
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(knightOut);
+            game.makeMove(move(2, 1, 3, 1));
+            if (i == 0) {
+                game.makeMove(knightBack);
+                game.makeMove(move(3, 1, 2, 1));
+            }
+        }
+        Assertions.assertFalse(game.getState().isGameOver());
+
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(knightBack, result.bestMove(), result.toString());
+        Assertions.assertEquals(0, result.score());
+
+        SearchResult withoutHistory = new Search().search(game.getBoard(), game.getTeamTurn(), SearchLimits.depth(4),
+                null);
+        Assertions.assertTrue(withoutHistory.score() < -300, withoutHistory.toString());
+    }
+
+    @Test
+    @DisplayName("Scores positions past the fifty-move limit as draws, except checkmate")
+    public void fiftyMoveRule() {
+        SearchResult fresh = new Search().search(ChessGame.fromFen("k7/8/2K5/8/8/8/8/6R1 w - - 0 1"),
+                SearchLimits.depth(6));
+        Assertions.assertEquals(2, fresh.mateIn(), fresh.toString());
+
+        // The mate in two would land after the clock reaches 100
+        SearchResult late = new Search().search(ChessGame.fromFen("k7/8/2K5/8/8/8/8/6R1 w - - 98 1"),
+                SearchLimits.depth(6));
+        Assertions.assertFalse(late.isMate(), late.toString());
+        Assertions.assertEquals(0, late.score());
+
+        SearchResult lastPly = new Search().search(ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 99 1"),
+                SearchLimits.depth(4));
+        Assertions.assertEquals(1, lastPly.mateIn(), lastPly.toString());
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
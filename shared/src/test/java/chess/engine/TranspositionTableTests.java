@@ -0,0 +1,102 @@
+package chess.engine;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TranspositionTableTests {
+
+    // Keys that differ only in these bits land in the same bucket of a 1 MB table
+    private static final long K1 = 1L << 20;
+    private static final long K2 = 2L << 20;
+    private static final long K3 = 3L << 20;
+
+    @Test
+    @DisplayName("Stored fields read back")
+    public void roundTrip() {
+        TranspositionTable table = new TranspositionTable(1);
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(42L));
+        table.store(42L, 0x1ABC, -1234, 9, TranspositionTable.UPPER);
+        long data = table.probe(42L);
+        Assertions.assertEquals(0x1ABC, TranspositionTable.move(data));
+        Assertions.assertEquals(-1234, TranspositionTable.score(data));
+        Assertions.assertEquals(9, TranspositionTable.depth(data));
+        Assertions.assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(data));
+        Assertions.assertEquals(2, table.probes());
+        Assertions.assertEquals(0.5, table.hitRate());
+
+        table.store(42L, 0, 50, 10, TranspositionTable.LOWER);
+        Assertions.assertEquals(0x1ABC, TranspositionTable.move(table.probe(42L)));
+    }
+
+    @Test
+    @DisplayName("A full bucket gives up its shallowest entry")
+    public void depthPreferred() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(K1, 1, 0, 5, TranspositionTable.EXACT);
+        table.store(K2, 2, 0, 3, TranspositionTable.EXACT);
+        table.store(K3, 3, 0, 4, TranspositionTable.EXACT);
+        Assertions.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(K1));
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(K2));
+        Assertions.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(K3));
+    }
+
+    @Test
+    @DisplayName("Entries from earlier searches are replaced before deeper current ones")
+    public void aging() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(K1, 1, 0, 20, TranspositionTable.EXACT);
+        table.store(K3, 3, 0, 4, TranspositionTable.EXACT);
+        table.newSearch();
+        table.store(K3, 3, 0, 4, TranspositionTable.EXACT);
+        table.store(K2, 2, 0, 1, TranspositionTable.EXACT);
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(K1));
+        Assertions.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(K2));
+        Assertions.assertNotEquals(TranspositionTable.NO_ENTRY, table.probe(K3));
+    }
+
+    @Test
+    @DisplayName("Concurrent readers only see entries written for the key they probe")
+    public void concurrentUse() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicInteger mismatches = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < 200_000; i++) {
+                    long key = ((i * 31 + seed) % 50_000) * 0x9E3779B97F4A7C15L;
+                    long data = table.probe(key);
+                    if (data != TranspositionTable.NO_ENTRY && TranspositionTable.score(data) != (short) key) {
+                        mismatches.incrementAndGet();
+                    }
+                    table.store(key, (int) (key >>> 48), (short) key, (int) (i & 63), TranspositionTable.EXACT);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(0, mismatches.get());
+        Assertions.assertTrue(table.hits() > 0, table.toString());
+    }
+
+    @Test
+    @DisplayName("Searching again reuses the table")
+    public void searchReuse() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - -");
+        Search search = new Search();
+        SearchResult first = search.search(game, SearchLimits.depth(4));
+        SearchResult second = search.search(game, SearchLimits.depth(4));
+        Assertions.assertTrue(second.nodes() < first.nodes(), first + " then " + second);
+        Assertions.assertEquals(first.score(), second.score());
+        Assertions.assertTrue(search.getTable().hitRate() > 0);
+    }
+}